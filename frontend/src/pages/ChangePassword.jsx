@@ -1,6 +1,7 @@
 import React, { useState, useEffect } from 'react'
 import { useNavigate, useLocation } from 'react-router-dom'
 import { authAPI } from '../services/api'
+import { useAuth } from '../contexts/AuthContext'
 import { Button } from '../components/ui/button'
 import { Input } from '../components/ui/input'
 import { Label } from '../components/ui/label'
@@ -15,6 +16,7 @@ export const ChangePassword = () => {
   const [loading, setLoading] = useState(false)
   const navigate = useNavigate()
   const location = useLocation()
+  const { login } = useAuth()
 
   useEffect(() => {
     // Get email from location state or use current user's email
@@ -51,7 +53,10 @@ export const ChangePassword = () => {
 
     try {
       await authAPI.changePassword(email, newPassword)
-      // Password changed successfully, redirect to dashboard
+      // The change ends every existing session, so log in again with the new password
+      const response = await authAPI.login(email, newPassword)
+      const { token, refreshToken, role, firstName, lastName, organizationAccess } = response.data
+      login({ email, role, firstName, lastName, organizationAccess: organizationAccess || {} }, token, refreshToken)
       navigate('/dashboard')
     } catch (err) {
       setError(err.response?.data?.message || 'Error changing password. Please try again.')
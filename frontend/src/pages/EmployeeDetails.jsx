@@ -36,6 +36,7 @@ export const EmployeeDetails = () => {
   const [size, setSize] = useState(100)
   const [totalPages, setTotalPages] = useState(0)
   const [totalElements, setTotalElements] = useState(0)
+  const [totalEstimated, setTotalEstimated] = useState(false)
   const [sortBy, setSortBy] = useState('id')
   const [sortDir, setSortDir] = useState('asc')
   const [search, setSearch] = useState('')
@@ -69,6 +70,7 @@ export const EmployeeDetails = () => {
       setEmployees(data.content)
       setTotalPages(data.totalPages)
       setTotalElements(data.totalElements)
+      setTotalEstimated(data.totalElementsEstimated)
     } catch (error) {
       console.error('Error loading employees:', error)
     } finally {
@@ -326,7 +328,7 @@ export const EmployeeDetails = () => {
       {/* Pagination */}
       <div className="flex items-center justify-between">
         <div className="text-sm text-muted-foreground">
-          Showing {page * size + 1} to {Math.min((page + 1) * size, totalElements)} of {totalElements} employees
+          Showing {page * size + 1} to {Math.min((page + 1) * size, totalElements)} of {totalEstimated ? `~${totalElements.toLocaleString()}` : totalElements} employees
         </div>
         <div className="flex gap-2">
           <Button
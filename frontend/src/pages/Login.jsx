@@ -43,6 +43,7 @@ export const Login = () => {
       const response = await authAPI.login(email, password)
       const { 
         token, 
+        refreshToken,
         email: userEmail, 
         role, 
         firstName, 
@@ -61,11 +62,11 @@ export const Login = () => {
       
       if (mustChangePassword) {
         // User must change password, redirect to change password page
-        login(userData, token)
+        login(userData, token, refreshToken)
         navigate('/change-password', { state: { email: userEmail, isFirstLogin: true } })
       } else {
         // Normal login
-        login(userData, token)
+        login(userData, token, refreshToken)
         navigate('/dashboard')
       }
     } catch (err) {
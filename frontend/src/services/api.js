@@ -18,16 +18,55 @@ api.interceptors.request.use((config) => {
   return config
 })
 
-// Handle 401 errors (unauthorized, including expired JWT)
+const clearSession = () => {
+  localStorage.removeItem('token')
+  localStorage.removeItem('user')
+  localStorage.removeItem('refreshToken')
+  // Redirect to login (using replace to prevent back button navigation)
+  window.location.replace('/login')
+}
+
+// Shared by all requests that fail while a refresh is in flight, since each
+// refresh token can only be used once
+let refreshPromise = null
+
+const refreshAccessToken = () => {
+  if (!refreshPromise) {
+    const refreshToken = localStorage.getItem('refreshToken')
+    refreshPromise = (refreshToken
+      ? axios.post(`${API_BASE_URL}/auth/refresh`, { refreshToken })
+      : Promise.reject(new Error('No refresh token')))
+      .then((response) => {
+        localStorage.setItem('token', response.data.token)
+        localStorage.setItem('refreshToken', response.data.refreshToken)
+        return response.data.token
+      })
+      .finally(() => {
+        refreshPromise = null
+      })
+  }
+  return refreshPromise
+}
+
+// Handle 401 errors (unauthorized, including expired JWT): get a new access
+// token with the refresh token and retry once, otherwise go back to login
 api.interceptors.response.use(
   (response) => response,
-  (error) => {
+  async (error) => {
+    const config = error.config
+    if (error.response?.status === 401 && config && !config._retried && !config.url?.startsWith('/auth/')) {
+      config._retried = true
+      try {
+        const token = await refreshAccessToken()
+        config.headers.Authorization = `Bearer ${token}`
+        return api(config)
+      } catch (refreshError) {
+        clearSession()
+        return Promise.reject(error)
+      }
+    }
     if (error.response?.status === 401) {
-      // Clear authentication data
-      localStorage.removeItem('token')
-      localStorage.removeItem('user')
-      // Redirect to login (using replace to prevent back button navigation)
-      window.location.replace('/login')
+      clearSession()
     }
     return Promise.reject(error)
   }
@@ -38,12 +77,16 @@ export const authAPI = {
     api.post('/auth/login', { email, password }),
   changePassword: (email, newPassword) =>
     api.post('/auth/change-password', { email, newPassword }),
+  // Plain axios: an expired access token must not block revoking the refresh token
+  logout: (refreshToken) =>
+    axios.post(`${API_BASE_URL}/auth/logout`, { refreshToken }),
 }
 
 export const employeeAPI = {
-  getAll: (page = 0, size = 100, sortBy = 'id', sortDir = 'asc', search = '') =>
+  // Pass a cursor ('' for the first page) to page by the returned nextCursor instead of page numbers
+  getAll: (page = 0, size = 100, sortBy = 'id', sortDir = 'asc', search = '', cursor, includeTotal) =>
     api.get('/employees', {
-      params: { page, size, sortBy, sortDir, search },
+      params: { page, size, sortBy, sortDir, search, cursor, includeTotal },
     }),
   getById: (id) => api.get(`/employees/${id}`),
   create: (data) => api.post('/employees', data),
@@ -79,9 +122,9 @@ export const userAPI = {
 }
 
 export const organizationDetailAPI = {
-  getAll: (page = 0, size = 100, sortBy = 'id', sortDir = 'asc', search = '', organizationTypeFilter = 'all') =>
+  getAll: (page = 0, size = 100, sortBy = 'id', sortDir = 'asc', search = '', organizationTypeFilter = 'all', cursor, includeTotal) =>
     api.get('/organization-details', {
-      params: { page, size, sortBy, sortDir, search, organizationTypeFilter },
+      params: { page, size, sortBy, sortDir, search, organizationTypeFilter, cursor, includeTotal },
     }),
   getOrganizationTypes: () => api.get('/organization-details/organization-types'),
   getById: (id) => api.get(`/organization-details/${id}`),
@@ -124,9 +167,9 @@ export const fieldDefinitionAPI = {
 
 // Unified Assignments API - works for all organization types
 export const assignmentAPI = {
-  getAll: (orgTypeSlug, page = 0, size = 100, sortBy = 'id', sortDir = 'desc', search = '') =>
+  getAll: (orgTypeSlug, page = 0, size = 100, sortBy = 'id', sortDir = 'desc', search = '', cursor, includeTotal) =>
     api.get('/assignments', {
-      params: { orgTypeSlug, page, size, sortBy, sortDir, search },
+      params: { orgTypeSlug, page, size, sortBy, sortDir, search, cursor, includeTotal },
     }),
   getById: (id) => api.get(`/assignments/${id}`),
   getByOrgDetail: (orgDetailId) => api.get(`/assignments/by-org-detail/${orgDetailId}`),
@@ -161,3 +204,11 @@ export const reportAPI = {
 }
 
 export default api
+
+export const searchAPI = {
+  // types: any of 'employees', 'organizationDetails', 'users'; all when omitted
+  suggest: (q, types, limit = 5) =>
+    api.get('/search/suggest', {
+      params: { q, types: types?.join(','), limit },
+    }),
+}
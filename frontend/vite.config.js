@@ -1,9 +1,46 @@
 import { defineConfig } from 'vite'
 import react from '@vitejs/plugin-react'
 import path from 'path'
+import fs from 'fs'
+import zlib from 'zlib'
+
+// Writes .br and .gz next to each compressible build file. The backend serves them
+// as-is to clients that accept them, so nothing is compressed per request.
+const precompress = () => {
+  const extensions = /\.(js|css|html|svg|json|txt)$/
+  const minSize = 1024
+  let outDir
+
+  const walk = (dir) => fs.readdirSync(dir, { withFileTypes: true }).flatMap((entry) => {
+    const file = path.join(dir, entry.name)
+    return entry.isDirectory() ? walk(file) : [file]
+  })
+
+  return {
+    name: 'precompress',
+    apply: 'build',
+    configResolved(config) {
+      outDir = path.resolve(config.root, config.build.outDir)
+    },
+    closeBundle() {
+      for (const file of walk(outDir)) {
+        if (!extensions.test(file)) continue
+        const content = fs.readFileSync(file)
+        if (content.length < minSize) continue
+        fs.writeFileSync(`${file}.gz`, zlib.gzipSync(content, { level: 9 }))
+        fs.writeFileSync(`${file}.br`, zlib.brotliCompressSync(content, {
+          params: {
+            [zlib.constants.BROTLI_PARAM_QUALITY]: 11,
+            [zlib.constants.BROTLI_PARAM_SIZE_HINT]: content.length,
+          },
+        }))
+      }
+    },
+  }
+}
 
 export default defineConfig({
-  plugins: [react()],
+  plugins: [react(), precompress()],
   resolve: {
     alias: {
       '@': path.resolve(__dirname, './src'),
@@ -12,6 +49,8 @@ export default defineConfig({
   build: {
     outDir: 'dist',
     emptyOutDir: true,
+    // File names carry a content hash, so the backend caches /assets as immutable
+    assetsDir: 'assets',
   },
   server: {
     port: 5173,
@@ -1,11 +1,14 @@
 package com.pwc.config;
 
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import com.pwc.model.*;
 import com.pwc.repository.*;
+import com.pwc.service.SearchIndex;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
@@ -14,15 +17,21 @@ public class DataInitializer implements CommandLineRunner {
     private final PasswordEncoder passwordEncoder;
     private final OrganizationTypeRepository organizationTypeRepository;
     private final AssignmentFieldDefinitionRepository fieldDefinitionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final SearchIndex searchIndex;
     
     public DataInitializer(UserRepository userRepository, 
                           PasswordEncoder passwordEncoder,
                           OrganizationTypeRepository organizationTypeRepository,
-                          AssignmentFieldDefinitionRepository fieldDefinitionRepository) {
+                          AssignmentFieldDefinitionRepository fieldDefinitionRepository,
+                          JdbcTemplate jdbcTemplate,
+                          SearchIndex searchIndex) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.organizationTypeRepository = organizationTypeRepository;
         this.fieldDefinitionRepository = fieldDefinitionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.searchIndex = searchIndex;
     }
     
     @Override
@@ -38,11 +47,56 @@ public class DataInitializer implements CommandLineRunner {
             admin.setRole(Role.ADMIN);
             
             userRepository.save(admin);
+            // The search index was loaded before this runner
+            searchIndex.indexUser(admin);
             System.out.println("Default admin user created: admin@pwc.com / admin123");
         }
         
         // Initialize organization types and field definitions
         initializeOrganizationTypes();
+        
+        alignIdSequence("employees", "employees_seq", Employee.ID_ALLOCATION_SIZE);
+        alignIdSequence("organization_details", "organization_details_seq", OrganizationDetail.ID_ALLOCATION_SIZE);
+    }
+    
+    /**
+     * Moves a pooled id sequence past the ids already in the table. Needed once for
+     * tables whose rows were created by an IDENTITY column before switching to the
+     * sequence. A sequence that is already ahead is left alone: restarting it could hand
+     * out ids that another instance has allocated but not inserted yet.
+     */
+    private void alignIdSequence(String table, String sequence, int allocationSize) {
+        Long nextValue = nextSequenceValue(sequence);
+        if (nextValue == null) {
+            System.out.println("Cannot read sequence " + sequence + "; not aligning it with " + table);
+            return;
+        }
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        // The pooled optimizer hands out the block ending at the value read
+        if (maxId == 0 || nextValue - allocationSize + 1 > maxId) {
+            return;
+        }
+        long restartWith = maxId + allocationSize + 1;
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restartWith);
+        System.out.println("Restarted " + sequence + " at " + restartWith + " to skip the existing " + table + " ids");
+    }
+    
+    /**
+     * The value the sequence returns next, read without consuming it, or null on
+     * databases other than H2 and PostgreSQL.
+     */
+    private Long nextSequenceValue(String sequence) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (product.contains("H2")) {
+            return jdbcTemplate.queryForObject("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES "
+                    + "WHERE SEQUENCE_SCHEMA = SCHEMA() AND SEQUENCE_NAME = UPPER(?)", Long.class, sequence);
+        }
+        if (product.contains("PostgreSQL")) {
+            return jdbcTemplate.queryForObject("SELECT COALESCE(last_value + increment_by, start_value) "
+                    + "FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = ?", Long.class, sequence);
+        }
+        return null;
     }
     
     private void initializeOrganizationTypes() {
@@ -1,6 +1,10 @@
 package com.pwc.config;
 
 import com.pwc.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -8,8 +12,10 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -19,6 +25,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -38,13 +45,17 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // Streaming responses were authorized on the original request
                 .requestMatchers("/api/auth/login").permitAll()
+                .requestMatchers("/api/auth/refresh", "/api/auth/logout").permitAll() // The refresh token is the credential
                 .requestMatchers("/api/parameters/{key}").permitAll() // Allow public parameter access (e.g., logo)
                 .requestMatchers("/api/parameters/image/{key}").permitAll() // Allow public image access
                 .requestMatchers("/api/organization-types/active").permitAll() // Allow public org types for menu
                 .requestMatchers("/api/field-definitions/by-slug/{slug}").permitAll() // Allow public field definitions
                 .requestMatchers("/h2-console/**").permitAll()
                 .requestMatchers("/error").permitAll() // Allow error endpoint for proper error handling
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .requestMatchers("/api/**").authenticated()
                 .anyRequest().permitAll() // Allow frontend static files
             )
@@ -55,9 +66,57 @@ public class SecurityConfig {
         return http.build();
     }
     
+    /**
+     * The frontend bundle and SPA routes are public and carry no credentials, so they skip
+     * the security filter chain instead of going through it just to be permitted.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public WebSecurityCustomizer webSecurityCustomizer() {
+        return web -> web.ignoring().requestMatchers(SecurityConfig::isFrontendRequest);
+    }
+    
+    /**
+     * The JWT filter only runs inside the security chain. As a bean it would also be
+     * registered with the servlet container and run on every request, static files included.
+     */
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration() {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(jwtAuthenticationFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+    
+    /**
+     * GETs for {@code /assets/**}, {@code /index.html} and the client-side routes
+     * forwarded by {@code SpaController}; everything served by the backend itself
+     * ({@code /api}, {@code /actuator}, {@code /h2-console}, {@code /error}) is excluded.
+     */
+    private static boolean isFrontendRequest(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return false;
+        }
+        String path = request.getServletPath();
+        if (path.startsWith("/assets/") || path.equals("/index.html")) {
+            return true;
+        }
+        return path.indexOf('.') < 0
+                && !path.startsWith("/api")
+                && !path.startsWith("/actuator")
+                && !path.startsWith("/h2-console")
+                && !path.startsWith("/error");
+    }
+    
+    /**
+     * New hashes are stored as {@code {bcrypt}...} with the configured cost. Hashes
+     * without an id prefix (all hashes written before) are still verified as BCrypt
+     * and re-encoded on the user's next successful login.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${app.security.password.bcrypt-strength:10}") int bcryptStrength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
     
     @Bean
@@ -0,0 +1,46 @@
+package com.pwc.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the frontend bundle built by Vite.
+ *
+ * Files under {@code /assets} carry a content hash in their name, so they never change
+ * and are cached for a year as immutable. {@code index.html} references them and is
+ * revalidated on every load, which is how a new deploy reaches browsers. The build also
+ * writes {@code .br} and {@code .gz} variants; they are served as-is to clients that
+ * accept them, so nothing is compressed per request.
+ *
+ * These paths bypass Spring Security entirely (see {@link SecurityConfig}).
+ */
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+    
+    private final long assetsMaxAgeDays;
+    
+    public StaticResourceConfig(@Value("${app.static.assets-max-age-days:365}") long assetsMaxAgeDays) {
+        this.assetsMaxAgeDays = assetsMaxAgeDays;
+    }
+    
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/assets/**")
+                .addResourceLocations("classpath:/static/assets/")
+                .setCacheControl(CacheControl.maxAge(assetsMaxAgeDays, TimeUnit.DAYS).cachePublic().immutable())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+        
+        registry.addResourceHandler("/index.html")
+                .addResourceLocations("classpath:/static/")
+                .setCacheControl(CacheControl.noCache())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+    }
+}
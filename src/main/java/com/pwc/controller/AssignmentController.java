@@ -30,7 +30,14 @@ public class AssignmentController {
             @RequestParam(defaultValue = "100") int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
-            @RequestParam(defaultValue = "") String search) {
+            @RequestParam(defaultValue = "") String search,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
+        // Any cursor, even an empty one (first page), switches to keyset pagination
+        if (cursor != null) {
+            return ResponseEntity.ok(service.getAssignmentsByOrgTypeAndCursor(
+                    orgTypeSlug, cursor, size, sortBy, sortDir, search, includeTotal));
+        }
         return ResponseEntity.ok(service.getAssignmentsByOrgType(orgTypeSlug, page, size, sortBy, sortDir, search));
     }
     
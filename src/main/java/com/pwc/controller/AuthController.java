@@ -3,39 +3,79 @@ package com.pwc.controller;
 import com.pwc.dto.ChangePasswordRequest;
 import com.pwc.dto.LoginRequest;
 import com.pwc.dto.LoginResponse;
+import com.pwc.dto.RefreshTokenRequest;
+import com.pwc.security.TokenVerifier;
 import com.pwc.service.UserService;
 import com.pwc.util.JwtUtil;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
     
     private final UserService userService;
     private final JwtUtil jwtUtil;
+    private final TokenVerifier tokenVerifier;
     
-    public AuthController(UserService userService, JwtUtil jwtUtil) {
+    public AuthController(UserService userService, JwtUtil jwtUtil, TokenVerifier tokenVerifier) {
         this.userService = userService;
         this.jwtUtil = jwtUtil;
+        this.tokenVerifier = tokenVerifier;
     }
     
+    /**
+     * Completes asynchronously once the password hash has been verified, so the request
+     * thread is released while the login waits for the verification pool.
+     */
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request) {
-        LoginResponse response = userService.authenticate(request.getEmail(), request.getPassword());
-        
-        // Generate JWT token
-        String token = jwtUtil.generateToken(response.getEmail(), response.getRole().name());
-        response.setToken(token);
-        
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(@Valid @RequestBody LoginRequest request) {
+        return userService.authenticate(request.getEmail(), request.getPassword())
+                .thenApply(response -> {
+                    // Generate JWT token
+                    String token = jwtUtil.generateToken(response.getEmail(), response.getRole().name());
+                    response.setToken(token);
+                    
+                    return ResponseEntity.ok(response);
+                });
+    }
+    
+    /**
+     * Issues a new access token for a valid refresh token. The refresh token is rotated:
+     * the response carries its replacement and the old one stops working.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        LoginResponse response = userService.refresh(request.getRefreshToken());
+        response.setToken(jwtUtil.generateToken(response.getEmail(), response.getRole().name()));
         return ResponseEntity.ok(response);
     }
     
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@Valid @RequestBody RefreshTokenRequest request) {
+        userService.logout(request.getRefreshToken());
+        return ResponseEntity.ok().build();
+    }
+    
     @PostMapping("/change-password")
     public ResponseEntity<?> changePassword(@Valid @RequestBody ChangePasswordRequest request) {
         userService.changePassword(request.getEmail(), request.getNewPassword());
         return ResponseEntity.ok().build();
     }
+    
+    /**
+     * Re-reads the JWT signing keys, e.g. after adding a key to or removing one from the keys file.
+     */
+    @PostMapping("/keys/reload")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> reloadKeys() {
+        jwtUtil.reloadKeys();
+        // Claims verified with a removed key must not outlive it
+        tokenVerifier.invalidateAll();
+        return ResponseEntity.ok().build();
+    }
 }
-
@@ -29,8 +29,14 @@ public class EmployeeController {
             @RequestParam(defaultValue = "100") int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "asc") String sortDir,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
         
+        // Any cursor, even an empty one (first page), switches to keyset pagination
+        if (cursor != null) {
+            return ResponseEntity.ok(employeeService.getEmployeesByCursor(cursor, size, sortBy, sortDir, search, includeTotal));
+        }
         PageResponse<EmployeeDTO> response = employeeService.getAllEmployees(page, size, sortBy, sortDir, search);
         return ResponseEntity.ok(response);
     }
@@ -0,0 +1,66 @@
+package com.pwc.controller;
+
+import com.pwc.dto.ImportJobDTO;
+import com.pwc.service.ImportJobService;
+import com.pwc.service.ImportJobService.ImportType;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/import-jobs")
+public class ImportJobController {
+    
+    private final ImportJobService importJobService;
+    
+    public ImportJobController(ImportJobService importJobService) {
+        this.importJobService = importJobService;
+    }
+    
+    @PostMapping("/employees")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ImportJobDTO> importEmployees(@RequestParam("file") MultipartFile file) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(importJobService.submit(ImportType.EMPLOYEES, file));
+    }
+    
+    @PostMapping("/organization-details")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ImportJobDTO> importOrganizationDetails(@RequestParam("file") MultipartFile file) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(importJobService.submit(ImportType.ORGANIZATION_DETAILS, file));
+    }
+    
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ImportJobDTO> getImportJob(@PathVariable String id) {
+        return ResponseEntity.ok(importJobService.getJob(id));
+    }
+    
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ImportJobDTO> cancelImportJob(@PathVariable String id) {
+        return ResponseEntity.ok(importJobService.cancel(id));
+    }
+    
+    @GetMapping("/{id}/rejections")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Resource> downloadRejections(@PathVariable String id) throws IOException {
+        Resource resource = new FileSystemResource(importJobService.getRejectionReport(id));
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"import_" + id + "_rejections.csv\"");
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .contentLength(resource.contentLength())
+                .body(resource);
+    }
+}
@@ -34,8 +34,15 @@ public class OrganizationDetailController {
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "asc") String sortDir,
             @RequestParam(required = false) String search,
-            @RequestParam(required = false, defaultValue = "all") String organizationTypeFilter) {
+            @RequestParam(required = false, defaultValue = "all") String organizationTypeFilter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
         
+        // Any cursor, even an empty one (first page), switches to keyset pagination
+        if (cursor != null) {
+            return ResponseEntity.ok(organizationDetailService.getOrganizationDetailsByCursor(
+                    cursor, size, sortBy, sortDir, search, organizationTypeFilter, includeTotal));
+        }
         PageResponse<OrganizationDetailDTO> response = organizationDetailService.getAllOrganizationDetails(page, size, sortBy, sortDir, search, organizationTypeFilter);
         return ResponseEntity.ok(response);
     }
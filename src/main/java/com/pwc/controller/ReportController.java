@@ -1,15 +1,24 @@
 package com.pwc.controller;
 
+import com.pwc.dto.ReportJobDTO;
 import com.pwc.service.ExcelReportService;
+import com.pwc.service.ReportJobService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -18,30 +27,56 @@ import java.time.format.DateTimeFormatter;
 public class ReportController {
     
     private final ExcelReportService excelReportService;
+    private final ReportJobService reportJobService;
     
-    public ReportController(ExcelReportService excelReportService) {
+    public ReportController(ExcelReportService excelReportService, ReportJobService reportJobService) {
         this.excelReportService = excelReportService;
+        this.reportJobService = reportJobService;
     }
     
     @GetMapping("/full-report")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<byte[]> generateFullReport() {
-        try {
-            byte[] excelData = excelReportService.generateFullReport();
-            
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmm"));
-            String filename = "Assign_Roles_" + timestamp + ".xlsx";
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
-            headers.setContentLength(excelData.length);
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelData);
-        } catch (IOException e) {
-            throw new RuntimeException("Error generating report: " + e.getMessage(), e);
-        }
+    public ResponseEntity<StreamingResponseBody> generateFullReport() {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmm"));
+        String filename = "Assign_Roles_" + timestamp + ".xlsx";
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        
+        // Served from the cached report when the data is unchanged, otherwise generated first on the async thread
+        StreamingResponseBody body = excelReportService::copyFullReport;
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+    
+    @PostMapping("/jobs")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReportJobDTO> submitReportJob() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reportJobService.submit());
+    }
+    
+    @GetMapping("/jobs/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReportJobDTO> getReportJob(@PathVariable String id) {
+        return ResponseEntity.ok(reportJobService.getJob(id));
+    }
+    
+    @GetMapping("/jobs/{id}/download")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Resource> downloadReport(@PathVariable String id) throws IOException {
+        Path file = reportJobService.getReportFile(id);
+        Resource resource = new FileSystemResource(file);
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + reportJobService.getFileName(id) + "\"");
+        
+        return ResponseEntity.ok()
+                .headers(headers)
+                .contentLength(resource.contentLength())
+                .body(resource);
     }
 }
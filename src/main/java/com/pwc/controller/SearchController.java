@@ -0,0 +1,32 @@
+package com.pwc.controller;
+
+import com.pwc.dto.SearchSuggestResponse;
+import com.pwc.service.SearchService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+    
+    private final SearchService searchService;
+    
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+    
+    /**
+     * Typeahead for the pickers: the best {@code limit} employees, organization details
+     * and users matching {@code q}, in one round trip.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<SearchSuggestResponse> suggest(
+            @RequestParam String q,
+            @RequestParam(required = false) Set<String> types,
+            @RequestParam(defaultValue = "5") int limit) {
+        
+        return ResponseEntity.ok(searchService.suggest(q, types, limit));
+    }
+}
@@ -77,4 +77,15 @@ public class UserController {
         response.put("message", "Password reset successfully. User must set a new password on next login.");
         return ResponseEntity.ok(response);
     }
+    
+    @PostMapping("/organization-access")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> updateOrganizationAccess(
+            @Valid @RequestBody BulkOrganizationAccessRequest request) {
+        int rows = userService.updateOrganizationAccess(request);
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Organization access updated");
+        response.put("rowsAffected", rows);
+        return ResponseEntity.ok(response);
+    }
 }
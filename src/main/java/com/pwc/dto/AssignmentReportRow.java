@@ -0,0 +1,10 @@
+package com.pwc.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection with just the columns the Assign Roles sheet needs.
+ * Built directly by the report query so no entities are hydrated.
+ */
+public record AssignmentReportRow(LocalDateTime createdAt, String positionId, String positionTitle) {
+}
@@ -0,0 +1,42 @@
+package com.pwc.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import java.util.HashSet;
+import java.util.Set;
+
+public class BulkOrganizationAccessRequest {
+    
+    @NotEmpty(message = "At least one user is required")
+    private Set<Long> userIds = new HashSet<>();
+    
+    // Organization type IDs to grant to / revoke from every user in userIds
+    private Set<Long> grant = new HashSet<>();
+    private Set<Long> revoke = new HashSet<>();
+    
+    public BulkOrganizationAccessRequest() {
+    }
+    
+    public Set<Long> getUserIds() {
+        return userIds;
+    }
+    
+    public void setUserIds(Set<Long> userIds) {
+        this.userIds = userIds;
+    }
+    
+    public Set<Long> getGrant() {
+        return grant;
+    }
+    
+    public void setGrant(Set<Long> grant) {
+        this.grant = grant;
+    }
+    
+    public Set<Long> getRevoke() {
+        return revoke;
+    }
+    
+    public void setRevoke(Set<Long> revoke) {
+        this.revoke = revoke;
+    }
+}
@@ -0,0 +1,65 @@
+package com.pwc.dto;
+
+import java.time.LocalDateTime;
+
+public class ImportJobDTO {
+    private String id;
+    private String type;
+    private String status;
+    private String fileName;
+    private long processed;
+    private long imported;
+    private long skipped;
+    private long emptyFields;
+    private long saveErrors;
+    private long exceptions;
+    private long cancelled;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    
+    public ImportJobDTO() {}
+    
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    
+    public long getProcessed() { return processed; }
+    public void setProcessed(long processed) { this.processed = processed; }
+    
+    public long getImported() { return imported; }
+    public void setImported(long imported) { this.imported = imported; }
+    
+    public long getSkipped() { return skipped; }
+    public void setSkipped(long skipped) { this.skipped = skipped; }
+    
+    public long getEmptyFields() { return emptyFields; }
+    public void setEmptyFields(long emptyFields) { this.emptyFields = emptyFields; }
+    
+    public long getSaveErrors() { return saveErrors; }
+    public void setSaveErrors(long saveErrors) { this.saveErrors = saveErrors; }
+    
+    public long getExceptions() { return exceptions; }
+    public void setExceptions(long exceptions) { this.exceptions = exceptions; }
+    
+    public long getCancelled() { return cancelled; }
+    public void setCancelled(long cancelled) { this.cancelled = cancelled; }
+    
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+}
@@ -6,6 +6,7 @@ import java.util.Map;
 
 public class LoginResponse {
     private String token;
+    private String refreshToken;
     private String email;
     private Role role;
     private String firstName;
@@ -35,6 +36,14 @@ public class LoginResponse {
         this.token = token;
     }
     
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+    
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+    
     public String getEmail() {
         return email;
     }
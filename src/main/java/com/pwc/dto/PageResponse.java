@@ -9,6 +9,10 @@ public class PageResponse<T> {
     private long totalElements;
     private int totalPages;
     private boolean last;
+    // Set in cursor mode: pass back as ?cursor= for the next page; null on the last page
+    private String nextCursor;
+    // True when totalElements (and so totalPages) comes from table statistics, not a COUNT
+    private boolean totalElementsEstimated;
     
     public PageResponse(List<T> content, int page, int size, long totalElements, int totalPages, boolean last) {
         this.content = content;
@@ -19,6 +23,20 @@ public class PageResponse<T> {
         this.last = last;
     }
     
+    /**
+     * A page fetched by cursor. Without a total, {@code totalElements} and
+     * {@code totalPages} are -1.
+     */
+    public static <T> PageResponse<T> ofCursor(List<T> content, int size, Long totalElements,
+                                               boolean totalElementsEstimated, String nextCursor) {
+        long total = totalElements != null ? totalElements : -1;
+        int totalPages = totalElements != null ? (int) ((total + size - 1) / size) : -1;
+        PageResponse<T> response = new PageResponse<>(content, 0, size, total, totalPages, nextCursor == null);
+        response.setTotalElementsEstimated(totalElementsEstimated);
+        response.setNextCursor(nextCursor);
+        return response;
+    }
+    
     public List<T> getContent() {
         return content;
     }
@@ -66,6 +84,22 @@ public class PageResponse<T> {
     public void setLast(boolean last) {
         this.last = last;
     }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public boolean isTotalElementsEstimated() {
+        return totalElementsEstimated;
+    }
+    
+    public void setTotalElementsEstimated(boolean totalElementsEstimated) {
+        this.totalElementsEstimated = totalElementsEstimated;
+    }
 }
 
 
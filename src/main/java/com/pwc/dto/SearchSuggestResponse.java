@@ -0,0 +1,41 @@
+package com.pwc.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Best hits per entity type, best first. Types that were not requested, or that the
+ * current user may not list, are empty.
+ */
+public class SearchSuggestResponse {
+    private List<SearchSuggestionDTO> employees = new ArrayList<>();
+    private List<SearchSuggestionDTO> organizationDetails = new ArrayList<>();
+    private List<SearchSuggestionDTO> users = new ArrayList<>();
+    
+    public SearchSuggestResponse() {
+    }
+    
+    public List<SearchSuggestionDTO> getEmployees() {
+        return employees;
+    }
+    
+    public void setEmployees(List<SearchSuggestionDTO> employees) {
+        this.employees = employees;
+    }
+    
+    public List<SearchSuggestionDTO> getOrganizationDetails() {
+        return organizationDetails;
+    }
+    
+    public void setOrganizationDetails(List<SearchSuggestionDTO> organizationDetails) {
+        this.organizationDetails = organizationDetails;
+    }
+    
+    public List<SearchSuggestionDTO> getUsers() {
+        return users;
+    }
+    
+    public void setUsers(List<SearchSuggestionDTO> users) {
+        this.users = users;
+    }
+}
@@ -0,0 +1,43 @@
+package com.pwc.dto;
+
+/**
+ * One typeahead hit: the entity id plus the text to show for it.
+ */
+public class SearchSuggestionDTO {
+    private Long id;
+    private String label;
+    private String detail;
+    
+    public SearchSuggestionDTO() {
+    }
+    
+    public SearchSuggestionDTO(Long id, String label, String detail) {
+        this.id = id;
+        this.label = label;
+        this.detail = detail;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+    
+    public void setLabel(String label) {
+        this.label = label;
+    }
+    
+    public String getDetail() {
+        return detail;
+    }
+    
+    public void setDetail(String detail) {
+        this.detail = detail;
+    }
+}
@@ -0,0 +1,12 @@
+package com.pwc.exception;
+
+/**
+ * Thrown when a bounded worker pool rejects new work because it is saturated.
+ * Mapped to HTTP 429 by GlobalExceptionHandler so clients can retry later.
+ */
+public class TooManyRequestsException extends RuntimeException {
+    
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.pwc.exception;
+
+/**
+ * Thrown when presented credentials, such as a refresh token, are invalid or revoked.
+ * Mapped to HTTP 401 by GlobalExceptionHandler so clients fall back to a full login.
+ */
+public class UnauthorizedException extends RuntimeException {
+    
+    public UnauthorizedException(String message) {
+        super(message);
+    }
+}
@@ -10,7 +10,8 @@ import java.util.List;
     @Index(name = "idx_assignments_employee", columnList = "employee_id"),
     @Index(name = "idx_assignments_org_detail", columnList = "organization_detail_id"),
     @Index(name = "idx_assignments_user", columnList = "user_id"),
-    @Index(name = "idx_assignments_created_at", columnList = "created_at")
+    // Backs the createdAt sort; the employee and organization sorts are on joined tables
+    @Index(name = "idx_assignments_created_at_id", columnList = "created_at, id")
 }, uniqueConstraints = {
     @UniqueConstraint(name = "uk_assignment_employee_org", columnNames = {"employee_id", "organization_detail_id"})
 })
@@ -5,14 +5,28 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "employees")
+// One index per sort key of the Employee Details listing, with id as tiebreaker
+@Table(name = "employees", indexes = {
+    @Index(name = "idx_employees_employee_id", columnList = "employee_id, id"),
+    @Index(name = "idx_employees_first_name", columnList = "first_name, id"),
+    @Index(name = "idx_employees_last_name", columnList = "last_name, id"),
+    @Index(name = "idx_employees_position_id", columnList = "position_id, id"),
+    @Index(name = "idx_employees_position_title", columnList = "position_title, id"),
+    @Index(name = "idx_employees_email", columnList = "email, id")
+})
 public class Employee {
     
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
+    // Pooled sequence so bulk imports can batch inserts (IDENTITY disables JDBC batching)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employees_seq")
+    @SequenceGenerator(name = "employees_seq", sequenceName = "employees_seq", allocationSize = Employee.ID_ALLOCATION_SIZE)
     private Long id;
     
     @Column(name = "employee_id", nullable = false)
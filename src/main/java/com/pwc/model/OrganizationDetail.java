@@ -3,11 +3,22 @@ package com.pwc.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "organization_details")
+// One index per sort key of the organization details listing, with id as tiebreaker
+@Table(name = "organization_details", indexes = {
+    @Index(name = "idx_organization_details_legacy_name", columnList = "legacy_organization_name, id"),
+    @Index(name = "idx_organization_details_organization", columnList = "organization, id"),
+    @Index(name = "idx_organization_details_type", columnList = "organization_type, id"),
+    @Index(name = "idx_organization_details_reference_id", columnList = "reference_id, id")
+})
 public class OrganizationDetail {
     
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
+    // Pooled sequence so bulk imports can batch inserts (IDENTITY disables JDBC batching)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "organization_details_seq")
+    @SequenceGenerator(name = "organization_details_seq", sequenceName = "organization_details_seq",
+            allocationSize = OrganizationDetail.ID_ALLOCATION_SIZE)
     private Long id;
     
     @Column(name = "legacy_organization_name", length = 100)
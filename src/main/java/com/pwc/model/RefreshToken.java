@@ -0,0 +1,52 @@
+package com.pwc.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Server-side record of an issued refresh token. Only the SHA-256 hash of the token is
+ * stored; the token itself is known to the client alone. Rows are deleted when the
+ * token is used, revoked or expires.
+ */
+@Entity
+@Table(name = "refresh_tokens",
+       indexes = @Index(name = "idx_refresh_tokens_user", columnList = "user_id"),
+       uniqueConstraints = @UniqueConstraint(name = "uk_refresh_tokens_hash", columnNames = "token_hash"))
+public class RefreshToken {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Plain column rather than an association, so user deletion is not blocked by a foreign key
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    // Constructors
+    public RefreshToken() {}
+    
+    public RefreshToken(Long userId, String tokenHash, LocalDateTime expiresAt) {
+        this.userId = userId;
+        this.tokenHash = tokenHash;
+        this.expiresAt = expiresAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public String getTokenHash() { return tokenHash; }
+    public void setTokenHash(String tokenHash) { this.tokenHash = tokenHash; }
+    
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
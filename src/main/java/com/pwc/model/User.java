@@ -1,11 +1,19 @@
 package com.pwc.model;
 
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+// One index per sort key of the users listing, with id as tiebreaker
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_first_name", columnList = "first_name, id"),
+    @Index(name = "idx_users_last_name", columnList = "last_name, id"),
+    @Index(name = "idx_users_company", columnList = "company, id"),
+    @Index(name = "idx_users_email", columnList = "email, id"),
+    @Index(name = "idx_users_role", columnList = "role, id")
+})
 public class User {
     
     @Id
@@ -31,6 +39,10 @@ public class User {
     @Column(name = "role", nullable = false)
     private Role role = Role.USER;
     
+    // Access tokens issued before this instant are rejected (set on password reset)
+    @Column(name = "tokens_valid_after")
+    private LocalDateTime tokensValidAfter;
+    
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<UserOrganizationAccess> organizationAccess = new ArrayList<>();
     
@@ -104,6 +116,14 @@ public class User {
         this.role = role;
     }
     
+    public LocalDateTime getTokensValidAfter() {
+        return tokensValidAfter;
+    }
+    
+    public void setTokensValidAfter(LocalDateTime tokensValidAfter) {
+        this.tokensValidAfter = tokensValidAfter;
+    }
+    
     public List<UserOrganizationAccess> getOrganizationAccess() {
         return organizationAccess;
     }
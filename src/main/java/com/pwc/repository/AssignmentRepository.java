@@ -1,7 +1,6 @@
 package com.pwc.repository;
 
 import com.pwc.model.Assignment;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -33,17 +32,31 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
            "  OR LOWER(e.employeeId) LIKE LOWER(CONCAT('%', :search, '%')) " +
            "  OR LOWER(od.organization) LIKE LOWER(CONCAT('%', :search, '%')) " +
            "  OR LOWER(od.legacyOrganizationName) LIKE LOWER(CONCAT('%', :search, '%')))")
-    Page<Assignment> findByOrganizationTypeWithSearch(
+    List<Assignment> findByOrganizationTypeWithSearch(
             @Param("orgTypeName") String orgTypeName,
             @Param("search") String search,
             Pageable pageable);
     
+    @Query("SELECT COUNT(a) FROM Assignment a " +
+           "JOIN a.employee e " +
+           "JOIN a.organizationDetail od " +
+           "WHERE od.organizationType = :orgTypeName " +
+           "AND (LOWER(e.firstName) LIKE LOWER(CONCAT('%', :search, '%')) " +
+           "  OR LOWER(e.lastName) LIKE LOWER(CONCAT('%', :search, '%')) " +
+           "  OR LOWER(e.email) LIKE LOWER(CONCAT('%', :search, '%')) " +
+           "  OR LOWER(e.employeeId) LIKE LOWER(CONCAT('%', :search, '%')) " +
+           "  OR LOWER(od.organization) LIKE LOWER(CONCAT('%', :search, '%')) " +
+           "  OR LOWER(od.legacyOrganizationName) LIKE LOWER(CONCAT('%', :search, '%')))")
+    long countByOrganizationTypeWithSearch(
+            @Param("orgTypeName") String orgTypeName,
+            @Param("search") String search);
+    
     // Paginated find by organization type without search
     @Query("SELECT a FROM Assignment a " +
            "JOIN a.employee e " +
            "JOIN a.organizationDetail od " +
            "WHERE od.organizationType = :orgTypeName")
-    Page<Assignment> findByOrganizationTypePageable(
+    List<Assignment> findByOrganizationTypePageable(
             @Param("orgTypeName") String orgTypeName,
             Pageable pageable);
     
@@ -64,11 +77,4 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     
     // Check if assignment exists
     boolean existsByEmployeeIdAndOrganizationDetailId(Long employeeId, Long organizationDetailId);
-    
-    // Find all assignments with employee eagerly loaded, ordered by positionId for report generation
-    @Query("SELECT a FROM Assignment a " +
-           "JOIN FETCH a.employee e " +
-           "JOIN FETCH a.organizationDetail od " +
-           "ORDER BY e.positionId ASC, a.createdAt ASC")
-    List<Assignment> findAllForReport();
 }
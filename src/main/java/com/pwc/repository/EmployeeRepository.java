@@ -1,9 +1,9 @@
 package com.pwc.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -31,7 +31,29 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
            "LOWER(e.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
            "LOWER(e.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
            "LOWER(e.employeeId) LIKE LOWER(CONCAT('%', :search, '%'))")
-    Page<Employee> searchEmployees(String search, Pageable pageable);
+    List<Employee> searchEmployees(String search, Pageable pageable);
+    
+    @Query("SELECT COUNT(e) FROM Employee e WHERE " +
+           "LOWER(e.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(e.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(e.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(e.employeeId) LIKE LOWER(CONCAT('%', :search, '%'))")
+    long countSearchEmployees(String search);
+    
+    /**
+     * One page of employees, without the count query of {@code findAll(Pageable)}
+     */
+    List<Employee> findAllBy(Pageable pageable);
+    
+    List<Employee> findByIdIn(Collection<Long> ids, Pageable pageable);
+    
+    /**
+     * Searchable fields as (id, employeeId, firstName, lastName, email) tuples, in id order
+     * after {@code afterId}, for building the search index page by page
+     */
+    @Query("SELECT e.id, e.employeeId, e.firstName, e.lastName, e.email FROM Employee e " +
+           "WHERE e.id > :afterId ORDER BY e.id")
+    List<Object[]> findSearchFieldsAfter(Long afterId, Pageable pageable);
     
     /**
      * Checks if an employee exists with all the same identifying fields
@@ -25,16 +25,37 @@ public interface OrganizationDetailRepository extends JpaRepository<Organization
            "LOWER(o.organizationType) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
            "LOWER(o.referenceId) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
            "(:organizationTypeFilter = 'all' OR LOWER(o.organizationType) = LOWER(:organizationTypeFilter))")
-    Page<OrganizationDetail> searchOrganizationDetailsWithTypeFilter(String search, String organizationTypeFilter, Pageable pageable);
+    List<OrganizationDetail> searchOrganizationDetailsWithTypeFilter(String search, String organizationTypeFilter, Pageable pageable);
+    
+    @Query("SELECT COUNT(o) FROM OrganizationDetail o WHERE " +
+           "(LOWER(o.legacyOrganizationName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(o.organization) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(o.organizationType) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(o.referenceId) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
+           "(:organizationTypeFilter = 'all' OR LOWER(o.organizationType) = LOWER(:organizationTypeFilter))")
+    long countSearchOrganizationDetailsWithTypeFilter(String search, String organizationTypeFilter);
     
     @Query("SELECT o FROM OrganizationDetail o WHERE " +
            "(:organizationTypeFilter = 'all' OR LOWER(o.organizationType) = LOWER(:organizationTypeFilter))")
-    Page<OrganizationDetail> findAllWithTypeFilter(String organizationTypeFilter, Pageable pageable);
+    List<OrganizationDetail> findAllWithTypeFilter(String organizationTypeFilter, Pageable pageable);
+    
+    @Query("SELECT COUNT(o) FROM OrganizationDetail o WHERE " +
+           "(:organizationTypeFilter = 'all' OR LOWER(o.organizationType) = LOWER(:organizationTypeFilter))")
+    long countWithTypeFilter(String organizationTypeFilter);
+    
+    /**
+     * One page of organization details, without the count query of {@code findAll(Pageable)}
+     */
+    List<OrganizationDetail> findAllBy(Pageable pageable);
     
     @Query("SELECT DISTINCT o.organizationType FROM OrganizationDetail o WHERE o.organizationType IS NOT NULL ORDER BY o.organizationType")
     List<String> findDistinctOrganizationTypes();
+    
+    /**
+     * Searchable fields as (id, legacyOrganizationName, organization, organizationType,
+     * referenceId) tuples, in id order after {@code afterId}, for building the search index
+     */
+    @Query("SELECT o.id, o.legacyOrganizationName, o.organization, o.organizationType, o.referenceId " +
+           "FROM OrganizationDetail o WHERE o.id > :afterId ORDER BY o.id")
+    List<Object[]> findSearchFieldsAfter(Long afterId, Pageable pageable);
 }
-
-
-
-
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +30,15 @@ public interface UserOrganizationAccessRepository extends JpaRepository<UserOrga
     @Query("SELECT uoa FROM UserOrganizationAccess uoa WHERE uoa.user.id = :userId AND uoa.hasAccess = true")
     List<UserOrganizationAccess> findActiveAccessByUserId(@Param("userId") Long userId);
     
+    @Query("SELECT uoa.user.id, uoa.organizationType.id, uoa.hasAccess FROM UserOrganizationAccess uoa")
+    List<Object[]> findAllAccessEntries();
+    
+    @Query("SELECT uoa.user.id, uoa.organizationType.id, uoa.hasAccess FROM UserOrganizationAccess uoa WHERE uoa.user.id = :userId")
+    List<Object[]> findAccessEntriesByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT uoa.user.id, uoa.organizationType.id, uoa.hasAccess FROM UserOrganizationAccess uoa WHERE uoa.user.id IN :userIds")
+    List<Object[]> findAccessEntriesByUserIdIn(@Param("userIds") Collection<Long> userIds);
+    
     @Query("SELECT uoa.user FROM UserOrganizationAccess uoa WHERE uoa.organizationType.id = :orgTypeId AND uoa.hasAccess = true")
     List<User> findUsersWithAccessToOrganizationType(@Param("orgTypeId") Long orgTypeId);
     
@@ -1,13 +1,16 @@
 package com.pwc.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.pwc.model.Role;
 import com.pwc.model.User;
@@ -21,6 +24,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     long countByRole(Role role);
     
+    /**
+     * Replaces the password hash unless it has changed since it was read.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+    
     @Query("SELECT u FROM User u WHERE " +
            "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
            "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
@@ -54,4 +65,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
            "LOWER(u.company) LIKE LOWER(CONCAT('%', :search, '%'))) " +
            "AND NOT EXISTS (SELECT oa FROM UserOrganizationAccess oa WHERE oa.user = u AND oa.hasAccess = true)")
     Page<User> searchUsersWithNoAccess(@Param("search") String search, Pageable pageable);
+    
+    /**
+     * Searchable fields as (id, firstName, lastName, email, company) tuples, in id order
+     * after {@code afterId}, for building the search index
+     */
+    @Query("SELECT u.id, u.firstName, u.lastName, u.email, u.company FROM User u " +
+           "WHERE u.id > :afterId ORDER BY u.id")
+    List<Object[]> findSearchFieldsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
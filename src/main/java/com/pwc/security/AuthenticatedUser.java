@@ -0,0 +1,78 @@
+package com.pwc.security;
+
+import com.pwc.model.Role;
+import com.pwc.model.User;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+/**
+ * Immutable snapshot of the logged-in user, resolved once and kept as the
+ * principal of the request's authentication. Organization type access is not part of
+ * it: {@link OrganizationAccessMatrix} is the source of truth for access checks.
+ */
+public final class AuthenticatedUser implements Principal {
+    
+    private final Long id;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+    private final String company;
+    private final Role role;
+    private final Instant tokensValidAfter;
+    
+    public AuthenticatedUser(User user) {
+        this.id = user.getId();
+        this.email = user.getEmail();
+        this.firstName = user.getFirstName();
+        this.lastName = user.getLastName();
+        this.company = user.getCompany();
+        this.role = user.getRole();
+        this.tokensValidAfter = user.getTokensValidAfter() != null
+                ? user.getTokensValidAfter().atZone(ZoneId.systemDefault()).toInstant().truncatedTo(ChronoUnit.SECONDS)
+                : null;
+    }
+    
+    /**
+     * False for access tokens issued before the user's tokens were revoked. Token
+     * timestamps have second precision, so the cutoff is truncated to seconds.
+     */
+    public boolean acceptsTokenIssuedAt(Date issuedAt) {
+        return tokensValidAfter == null || (issuedAt != null && !issuedAt.toInstant().isBefore(tokensValidAfter));
+    }
+    
+    /**
+     * Returns a detached {@link User} carrying this snapshot's fields, usable as a
+     * reference in associations such as {@code Assignment.createdBy}. It has no
+     * password or access rows and must never be saved itself.
+     */
+    public User toUser() {
+        return new User(id, firstName, lastName, company, email, null, role);
+    }
+    
+    @Override
+    public String getName() {
+        return email;
+    }
+    
+    @Override
+    public String toString() {
+        return email;
+    }
+    
+    // Getters
+    public Long getId() { return id; }
+    
+    public String getEmail() { return email; }
+    
+    public String getFirstName() { return firstName; }
+    
+    public String getLastName() { return lastName; }
+    
+    public String getCompany() { return company; }
+    
+    public Role getRole() { return role; }
+}
@@ -0,0 +1,60 @@
+package com.pwc.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pwc.repository.UserRepository;
+import com.pwc.util.TransactionCallbacks;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Short-lived cache of {@link AuthenticatedUser} snapshots by email.
+ *
+ * The JWT filter resolves the principal here, so a user is read from the database
+ * at most once per TTL instead of on every request. {@code UserService} evicts a
+ * user when their account changes; the TTL bounds staleness for anything else.
+ */
+@Component
+public class AuthenticatedUserCache {
+    
+    private final UserRepository userRepository;
+    private final Cache<String, AuthenticatedUser> users;
+    
+    public AuthenticatedUserCache(UserRepository userRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.security.user-cache.ttl-seconds:60}") long ttlSeconds,
+                                  @Value("${app.security.user-cache.max-size:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "authenticated.users");
+    }
+    
+    /**
+     * Returns the user with this email, or null if there is none.
+     */
+    public AuthenticatedUser get(String email) {
+        return users.get(email, this::load);
+    }
+    
+    /**
+     * Drops the cached user. Inside a transaction the user is dropped again after commit,
+     * so a request that reloaded it in between cannot keep the pre-commit state.
+     */
+    public void evict(String email) {
+        TransactionCallbacks.nowAndAfterCommit(() -> users.invalidate(email));
+    }
+    
+    private AuthenticatedUser load(String email) {
+        return userRepository.findByEmail(email)
+                .map(AuthenticatedUser::new)
+                .orElse(null);
+    }
+}
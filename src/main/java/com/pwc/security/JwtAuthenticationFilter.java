@@ -1,6 +1,6 @@
 package com.pwc.security;
 
-import com.pwc.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
@@ -20,10 +20,12 @@ import java.util.Collections;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
-    private final JwtUtil jwtUtil;
+    private final TokenVerifier tokenVerifier;
+    private final AuthenticatedUserCache userCache;
     
-    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
-        this.jwtUtil = jwtUtil;
+    public JwtAuthenticationFilter(TokenVerifier tokenVerifier, AuthenticatedUserCache userCache) {
+        this.tokenVerifier = tokenVerifier;
+        this.userCache = userCache;
     }
     
     @Override
@@ -39,19 +41,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         try {
             final String token = authHeader.substring(7);
-            final String email = jwtUtil.extractEmail(token);
-            final String role = jwtUtil.extractRole(token);
+            // Signature and expiration are checked here, once per token
+            final Claims claims = tokenVerifier.verify(token);
+            final String email = claims.getSubject();
             
             if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                if (jwtUtil.validateToken(token, email)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            email,
-                            null,
-                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
-                    );
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                // Current account state, so role changes and deletions apply to issued tokens too
+                final AuthenticatedUser user = userCache.get(email);
+                if (user == null) {
+                    logger.warn("JWT token for unknown user: " + email);
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    response.setContentType("application/json");
+                    response.getWriter().write("{\"error\":\"Authentication failed\"}");
+                    return;
                 }
+                if (!user.acceptsTokenIssuedAt(claims.getIssuedAt())) {
+                    logger.warn("Revoked JWT token for user: " + email);
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    response.setContentType("application/json");
+                    response.getWriter().write("{\"error\":\"JWT token has been revoked\"}");
+                    return;
+                }
+                
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        user,
+                        null,
+                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
+                );
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         } catch (ExpiredJwtException e) {
             logger.warn("JWT token has expired: " + e.getMessage());
@@ -0,0 +1,137 @@
+package com.pwc.security;
+
+import com.pwc.repository.UserOrganizationAccessRepository;
+import com.pwc.util.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the {@code user_organization_access} table: per user, one bitset
+ * of the organization type ids that have an access row and one of those granted.
+ *
+ * Loaded once at startup and refreshed per user after each committed change, so
+ * access checks and {@code UserDTO} building never query the table. Entries are
+ * read as plain (user id, organization type id, flag) tuples from the foreign key
+ * columns; refreshes of many users are batched into {@code IN} queries.
+ */
+@Component
+public class OrganizationAccessMatrix {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrganizationAccessMatrix.class);
+    
+    private static final UserAccess NO_ACCESS = new UserAccess(new BitSet(), new BitSet());
+    
+    /** Upper bound of user ids per {@code IN} list */
+    private static final int LOAD_BATCH_SIZE = 500;
+    
+    private final UserOrganizationAccessRepository userOrgAccessRepository;
+    private final Map<Long, UserAccess> accessByUser = new ConcurrentHashMap<>();
+    
+    public OrganizationAccessMatrix(UserOrganizationAccessRepository userOrgAccessRepository) {
+        this.userOrgAccessRepository = userOrgAccessRepository;
+    }
+    
+    @PostConstruct
+    public void load() {
+        Map<Long, UserAccess> loaded = toMatrix(userOrgAccessRepository.findAllAccessEntries());
+        accessByUser.clear();
+        accessByUser.putAll(loaded);
+        logger.info("Loaded organization access for {} users", loaded.size());
+    }
+    
+    public boolean hasAccess(Long userId, Long organizationTypeId) {
+        if (userId == null || organizationTypeId == null) {
+            return false;
+        }
+        return accessByUser.getOrDefault(userId, NO_ACCESS).granted.get(Math.toIntExact(organizationTypeId));
+    }
+    
+    /**
+     * Returns the organization type ids the user has been granted.
+     */
+    public List<Long> grantedOrganizationTypeIds(Long userId) {
+        return accessByUser.getOrDefault(userId, NO_ACCESS).granted.stream()
+                .mapToObj(Long::valueOf)
+                .toList();
+    }
+    
+    /**
+     * Returns the user's access rows as organization type id to granted flag, the shape
+     * exposed by {@code UserDTO} and {@code LoginResponse}.
+     */
+    public Map<Long, Boolean> accessMap(Long userId) {
+        UserAccess access = accessByUser.getOrDefault(userId, NO_ACCESS);
+        Map<Long, Boolean> map = new HashMap<>();
+        access.recorded.stream().forEach(id -> map.put((long) id, access.granted.get(id)));
+        return map;
+    }
+    
+    /**
+     * Re-reads the user's access rows once the current transaction commits.
+     */
+    public void refreshUser(Long userId) {
+        refreshUsers(List.of(userId));
+    }
+    
+    /**
+     * Re-reads the access rows of all given users once the current transaction commits,
+     * with one query per {@value #LOAD_BATCH_SIZE} users.
+     */
+    public void refreshUsers(Collection<Long> userIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        TransactionCallbacks.afterCommit(() -> {
+            for (int from = 0; from < ids.size(); from += LOAD_BATCH_SIZE) {
+                List<Long> batch = ids.subList(from, Math.min(from + LOAD_BATCH_SIZE, ids.size()));
+                Map<Long, UserAccess> loaded = loadUsers(batch);
+                for (Long userId : batch) {
+                    // Users without rows drop out of the matrix
+                    accessByUser.compute(userId, (id, current) -> loaded.get(id));
+                }
+            }
+        });
+    }
+    
+    /**
+     * Forgets the user once the current transaction commits.
+     */
+    public void removeUser(Long userId) {
+        TransactionCallbacks.afterCommit(() -> accessByUser.remove(userId));
+    }
+    
+    private Map<Long, UserAccess> loadUsers(Collection<Long> userIds) {
+        return toMatrix(userOrgAccessRepository.findAccessEntriesByUserIdIn(userIds));
+    }
+    
+    private static Map<Long, UserAccess> toMatrix(List<Object[]> entries) {
+        Map<Long, UserAccess> matrix = new HashMap<>();
+        for (Object[] entry : entries) {
+            matrix.computeIfAbsent((Long) entry[0], userId -> new UserAccess(new BitSet(), new BitSet()))
+                    .add((Long) entry[1], (Boolean) entry[2]);
+        }
+        return matrix;
+    }
+    
+    /**
+     * One user's row of the matrix. Only mutated while being built, then published
+     * through the map and never changed again.
+     */
+    private record UserAccess(BitSet recorded, BitSet granted) {
+        
+        void add(Long organizationTypeId, Boolean hasAccess) {
+            int index = Math.toIntExact(organizationTypeId);
+            recorded.set(index);
+            granted.set(index, Boolean.TRUE.equals(hasAccess));
+        }
+    }
+}
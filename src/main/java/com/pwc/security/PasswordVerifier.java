@@ -0,0 +1,125 @@
+package com.pwc.security;
+
+import com.pwc.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs password hash verification on a dedicated, bounded pool.
+ *
+ * BCrypt is deliberately CPU-heavy, so a burst of logins on request threads would
+ * starve every other endpoint. Here at most {@code threads} hashes run at once, up to
+ * {@code queue-capacity} wait, and anything beyond that fails fast with a 429.
+ *
+ * After a successful check, hashes in a legacy format or with a BCrypt cost other than
+ * {@code app.security.password.bcrypt-strength} are re-encoded on the same thread.
+ *
+ * Metrics: {@code executor.*} tagged {@code name=password-verifier} (queue depth,
+ * active threads), the {@code auth.password.verify} timer, the
+ * {@code auth.password.rejected} and {@code auth.password.upgraded} counters and the
+ * {@code auth.password.bcrypt.strength} gauge.
+ */
+@Component
+public class PasswordVerifier {
+    
+    private static final Pattern BCRYPT_COST = Pattern.compile("^(?:\\{bcrypt\\})?\\$2[abxy]?\\$(\\d{2})\\$");
+    
+    public record PasswordCheck(boolean matches, String upgradedHash) {
+    }
+    
+    private final PasswordEncoder passwordEncoder;
+    private final int bcryptStrength;
+    private final ExecutorService executor;
+    private final ThreadPoolExecutor pool;
+    private final Timer verifyTimer;
+    private final Counter rejected;
+    private final Counter upgraded;
+    
+    public PasswordVerifier(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                            @Value("${app.security.password.bcrypt-strength:10}") int bcryptStrength,
+                            @Value("${app.security.password.threads:0}") int threads,
+                            @Value("${app.security.password.queue-capacity:100}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.bcryptStrength = bcryptStrength;
+        
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-verifier-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "password-verifier", List.of());
+        this.verifyTimer = Timer.builder("auth.password.verify")
+                .description("Time spent verifying a password hash")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.rejected")
+                .description("Password verifications refused because the queue was full")
+                .register(meterRegistry);
+        this.upgraded = Counter.builder("auth.password.upgraded")
+                .description("Password hashes re-encoded with the configured format and cost")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.bcrypt.strength", () -> bcryptStrength)
+                .description("BCrypt cost used for new password hashes")
+                .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+    
+    /**
+     * Checks the password against the stored hash on the verification pool. If it matches
+     * and the hash is outdated, the result carries a new hash to store in its place.
+     *
+     * @throws TooManyRequestsException if too many verifications are already queued
+     */
+    public CompletableFuture<PasswordCheck> check(String rawPassword, String encodedPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                boolean matches = verifyTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+                if (!matches || !needsRehash(encodedPassword)) {
+                    return new PasswordCheck(matches, null);
+                }
+                upgraded.increment();
+                return new PasswordCheck(true, passwordEncoder.encode(rawPassword));
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many login attempts in progress. Please try again shortly.");
+        }
+    }
+    
+    /**
+     * True for hashes without the current id prefix and for BCrypt hashes whose cost
+     * differs from the configured one, in either direction.
+     */
+    private boolean needsRehash(String encodedPassword) {
+        if (passwordEncoder.upgradeEncoding(encodedPassword)) {
+            return true;
+        }
+        Matcher cost = BCRYPT_COST.matcher(encodedPassword);
+        return cost.find() && Integer.parseInt(cost.group(1)) != bcryptStrength;
+    }
+}
@@ -0,0 +1,83 @@
+package com.pwc.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.pwc.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies JWTs once and remembers the result.
+ * 
+ * Tokens whose signature has been checked are cached with their claims until the
+ * token expires, so repeat requests with the same token skip parsing and HMAC
+ * verification. The cache is bounded and exposes its statistics as the
+ * {@code cache.*} metrics tagged {@code cache=jwt.claims}.
+ */
+@Component
+public class TokenVerifier {
+    
+    private final JwtUtil jwtUtil;
+    private final Cache<String, Claims> verifiedTokens;
+    
+    public TokenVerifier(JwtUtil jwtUtil, MeterRegistry meterRegistry,
+                         @Value("${app.security.token-cache.max-size:10000}") long maxSize) {
+        this.jwtUtil = jwtUtil;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String token, Claims claims, long currentTime) {
+                        // Drop the entry exactly when the token itself expires
+                        long millisLeft = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisLeft));
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.claims");
+    }
+    
+    /**
+     * Returns the claims of a valid token, verifying it only if it has not been seen before.
+     * 
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public Claims verify(String token) {
+        Claims claims = verifiedTokens.getIfPresent(token);
+        if (claims != null && claims.getExpiration().after(new Date())) {
+            return claims;
+        }
+        
+        // Throws for bad signatures and expired tokens, which are never cached
+        claims = jwtUtil.parseClaims(token);
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(token, claims);
+        }
+        return claims;
+    }
+    
+    /**
+     * Forgets all verified tokens, e.g. after the signing keys change.
+     */
+    public void invalidateAll() {
+        verifiedTokens.invalidateAll();
+    }
+}
@@ -3,20 +3,39 @@ package com.pwc.service;
 import com.pwc.dto.*;
 import com.pwc.model.*;
 import com.pwc.repository.*;
+import com.pwc.security.AuthenticatedUser;
+import com.pwc.security.OrganizationAccessMatrix;
+import com.pwc.util.KeysetPaginator;
+import com.pwc.util.KeysetPaginator.SortKey;
+import com.pwc.util.SortRegistry;
 import com.pwc.util.SecurityUtil;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class AssignmentService {
     
+    // id and createdAt are backed by indexes on Assignment. The employee and organization
+    // keys sort by the joined e and od columns, which no index orders within an
+    // organization type, so the database sorts those pages; they have no cursor mode.
+    private static final SortRegistry SORTS = SortRegistry.builder("assignments", "id", "a.id")
+            .addId("id")
+            .add("createdAt", "createdAt", "a.createdAt", LocalDateTime.class)
+            .add("employeeFirstName", "e.firstName")
+            .add("employeeLastName", "e.lastName")
+            .add("employeeEmail", "e.email")
+            .add("organizationName", "od.organization")
+            .build();
+    
     private final AssignmentRepository assignmentRepository;
     private final AssignmentFieldValueRepository fieldValueRepository;
     private final AssignmentFieldDefinitionRepository fieldDefinitionRepository;
@@ -25,6 +44,10 @@ public class AssignmentService {
     private final OrganizationDetailRepository orgDetailRepository;
     private final UserRepository userRepository;
     private final SecurityUtil securityUtil;
+    private final ReportDataVersion reportDataVersion;
+    private final OrganizationAccessMatrix organizationAccessMatrix;
+    private final KeysetPaginator keysetPaginator;
+    private final PageCountCache pageCountCache;
     
     public AssignmentService(AssignmentRepository assignmentRepository,
                             AssignmentFieldValueRepository fieldValueRepository,
@@ -33,7 +56,11 @@ public class AssignmentService {
                             EmployeeRepository employeeRepository,
                             OrganizationDetailRepository orgDetailRepository,
                             UserRepository userRepository,
-                            SecurityUtil securityUtil) {
+                            SecurityUtil securityUtil,
+                            ReportDataVersion reportDataVersion,
+                            OrganizationAccessMatrix organizationAccessMatrix,
+                            KeysetPaginator keysetPaginator,
+                            PageCountCache pageCountCache) {
         this.assignmentRepository = assignmentRepository;
         this.fieldValueRepository = fieldValueRepository;
         this.fieldDefinitionRepository = fieldDefinitionRepository;
@@ -42,6 +69,10 @@ public class AssignmentService {
         this.orgDetailRepository = orgDetailRepository;
         this.userRepository = userRepository;
         this.securityUtil = securityUtil;
+        this.reportDataVersion = reportDataVersion;
+        this.organizationAccessMatrix = organizationAccessMatrix;
+        this.keysetPaginator = keysetPaginator;
+        this.pageCountCache = pageCountCache;
     }
     
     public PageResponse<AssignmentDTO> getAssignmentsByOrgType(String orgTypeSlug, int page, int size, 
@@ -49,24 +80,83 @@ public class AssignmentService {
         // Get org type to find the name
         OrganizationType orgType = orgTypeRepository.findBySlug(orgTypeSlug)
                 .orElseThrow(() -> new RuntimeException("Organization type not found: " + orgTypeSlug));
+        checkAccess(orgType);
         
-        Sort sort = sortDir.equalsIgnoreCase("desc") 
-                ? Sort.by(sortBy).descending() 
-                : Sort.by(sortBy).ascending();
-        
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = PageRequest.of(page, size, SORTS.sort(sortBy, sortDir));
         
-        Page<Assignment> assignmentPage;
+        List<Assignment> assignments;
         if (search != null && !search.trim().isEmpty()) {
-            assignmentPage = assignmentRepository.findByOrganizationTypeWithSearch(
+            assignments = assignmentRepository.findByOrganizationTypeWithSearch(
                     orgType.getName(), search.trim(), pageable);
         } else {
-            assignmentPage = assignmentRepository.findByOrganizationTypePageable(
+            assignments = assignmentRepository.findByOrganizationTypePageable(
                     orgType.getName(), pageable);
         }
+        Page<Assignment> assignmentPage = new PageImpl<>(assignments, pageable,
+                countAssignments(orgType.getName(), search));
+        
+        List<AssignmentDTO> content = toDTOsWithFieldValues(assignmentPage.getContent());
+        
+        return new PageResponse<>(
+                content,
+                assignmentPage.getNumber(),
+                assignmentPage.getSize(),
+                assignmentPage.getTotalElements(),
+                assignmentPage.getTotalPages(),
+                assignmentPage.isLast()
+        );
+    }
+    
+    /**
+     * Cursor (keyset) variant of {@link #getAssignmentsByOrgType}: returns the page after
+     * {@code cursor} (the first one when empty) and skips the count unless
+     * {@code includeTotal} is set.
+     */
+    public PageResponse<AssignmentDTO> getAssignmentsByOrgTypeAndCursor(String orgTypeSlug, String cursor, int size,
+                                                                        String sortBy, String sortDir, String search,
+                                                                        boolean includeTotal) {
+        OrganizationType orgType = orgTypeRepository.findBySlug(orgTypeSlug)
+                .orElseThrow(() -> new RuntimeException("Organization type not found: " + orgTypeSlug));
+        checkAccess(orgType);
+        
+        SortKey sortKey = SORTS.keysetKey(sortBy);
+        
+        String where = "od.organizationType = :orgTypeName";
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("orgTypeName", orgType.getName());
+        if (search != null && !search.trim().isEmpty()) {
+            where += " AND (LOWER(e.firstName) LIKE :search OR LOWER(e.lastName) LIKE :search "
+                    + "OR LOWER(e.email) LIKE :search OR LOWER(e.employeeId) LIKE :search "
+                    + "OR LOWER(od.organization) LIKE :search OR LOWER(od.legacyOrganizationName) LIKE :search)";
+            parameters.put("search", "%" + search.trim().toLowerCase() + "%");
+        }
+        
+        KeysetPaginator.Slice<Assignment> slice = keysetPaginator.fetch(
+                new KeysetPaginator.Query<>(Assignment.class, "a",
+                        "FROM Assignment a JOIN a.employee e JOIN a.organizationDetail od", where, parameters, "a.id"),
+                sortKey, !sortDir.equalsIgnoreCase("desc"), cursor, size);
+        Long total = includeTotal ? countAssignments(orgType.getName(), search) : null;
         
+        return PageResponse.ofCursor(toDTOsWithFieldValues(slice.content()), size, total, false, slice.nextCursor());
+    }
+    
+    private long countAssignments(String orgTypeName, String search) {
+        if (search != null && !search.trim().isEmpty()) {
+            String trimmed = search.trim();
+            return pageCountCache.filtered(PageCountCache.ASSIGNMENTS,
+                    "type:" + orgTypeName + "\u0000search:" + trimmed.toLowerCase(),
+                    () -> assignmentRepository.countByOrganizationTypeWithSearch(orgTypeName, trimmed)).count();
+        }
+        return pageCountCache.filtered(PageCountCache.ASSIGNMENTS, "type:" + orgTypeName,
+                () -> assignmentRepository.countByOrganizationType(orgTypeName)).count();
+    }
+    
+    /**
+     * Converts a page of assignments, fetching the field values of all of them at once.
+     */
+    private List<AssignmentDTO> toDTOsWithFieldValues(List<Assignment> assignments) {
         // Get all assignment IDs to batch fetch field values
-        List<Long> assignmentIds = assignmentPage.getContent().stream()
+        List<Long> assignmentIds = assignments.stream()
                 .map(Assignment::getId)
                 .collect(Collectors.toList());
         
@@ -80,23 +170,15 @@ public class AssignmentService {
             }
         }
         
-        List<AssignmentDTO> content = assignmentPage.getContent().stream()
+        return assignments.stream()
                 .map(a -> convertToDTO(a, fieldValuesMap.getOrDefault(a.getId(), new HashMap<>())))
                 .collect(Collectors.toList());
-        
-        return new PageResponse<>(
-                content,
-                assignmentPage.getNumber(),
-                assignmentPage.getSize(),
-                assignmentPage.getTotalElements(),
-                assignmentPage.getTotalPages(),
-                assignmentPage.isLast()
-        );
     }
     
     public AssignmentDTO getAssignmentById(Long id) {
         Assignment assignment = assignmentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Assignment not found"));
+        checkAccess(assignment.getOrganizationDetail());
         
         List<AssignmentFieldValue> fieldValues = fieldValueRepository.findByAssignmentIdWithFieldDefinition(id);
         Map<String, Boolean> fieldValuesMap = fieldValues.stream()
@@ -110,6 +192,8 @@ public class AssignmentService {
     }
     
     public List<AssignmentDTO> getAssignmentsByOrgDetailId(Long orgDetailId) {
+        orgDetailRepository.findById(orgDetailId).ifPresent(this::checkAccess);
+        
         List<Assignment> assignments = assignmentRepository.findByOrganizationDetailId(orgDetailId);
         
         List<Long> assignmentIds = assignments.stream()
@@ -144,15 +228,16 @@ public class AssignmentService {
         OrganizationDetail orgDetail = orgDetailRepository.findById(createDTO.getOrganizationDetailId())
                 .orElseThrow(() -> new RuntimeException("Organization detail not found"));
         
+        // Get org type for field definitions
+        OrganizationType orgType = orgTypeRepository.findByName(orgDetail.getOrganizationType())
+                .orElse(null);
+        checkAccess(orgType);
+        
         User currentUser = securityUtil.getCurrentUser();
         
         Assignment assignment = new Assignment(employee, orgDetail, currentUser);
         Assignment saved = assignmentRepository.save(assignment);
         
-        // Get org type for field definitions
-        OrganizationType orgType = orgTypeRepository.findByName(orgDetail.getOrganizationType())
-                .orElse(null);
-        
         // Save field values
         Map<String, Boolean> savedFieldValues = new HashMap<>();
         if (orgType != null && createDTO.getFieldValues() != null) {
@@ -167,6 +252,8 @@ public class AssignmentService {
             }
         }
         
+        reportDataVersion.bump();
+        pageCountCache.invalidate(PageCountCache.ASSIGNMENTS);
         return convertToDTO(saved, savedFieldValues);
     }
     
@@ -178,6 +265,7 @@ public class AssignmentService {
         OrganizationDetail orgDetail = assignment.getOrganizationDetail();
         OrganizationType orgType = orgTypeRepository.findByName(orgDetail.getOrganizationType())
                 .orElse(null);
+        checkAccess(orgType);
         
         Map<String, Boolean> savedFieldValues = new HashMap<>();
         
@@ -204,16 +292,19 @@ public class AssignmentService {
             }
         }
         
+        reportDataVersion.bump();
         return convertToDTO(assignment, savedFieldValues);
     }
     
     @Transactional
     public void deleteAssignment(Long id) {
-        if (!assignmentRepository.existsById(id)) {
-            throw new RuntimeException("Assignment not found");
-        }
+        Assignment assignment = assignmentRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Assignment not found"));
+        checkAccess(assignment.getOrganizationDetail());
         // Field values will be deleted by cascade
         assignmentRepository.deleteById(id);
+        reportDataVersion.bump();
+        pageCountCache.invalidate(PageCountCache.ASSIGNMENTS);
     }
     
     public Long countByOrgType(String orgTypeName) {
@@ -226,6 +317,9 @@ public class AssignmentService {
         Map<Long, Long> counts = new HashMap<>();
         
         for (OrganizationType orgType : orgTypes) {
+            if (!canAccess(orgType)) {
+                continue;
+            }
             Long count = assignmentRepository.countByOrganizationType(orgType.getName());
             counts.put(orgType.getId(), count);
         }
@@ -233,6 +327,29 @@ public class AssignmentService {
         return counts;
     }
     
+    private void checkAccess(OrganizationDetail orgDetail) {
+        if (securityUtil.getCurrentPrincipal().getRole() != Role.ADMIN) {
+            checkAccess(orgTypeRepository.findByName(orgDetail.getOrganizationType()).orElse(null));
+        }
+    }
+    
+    private void checkAccess(OrganizationType orgType) {
+        if (!canAccess(orgType)) {
+            throw new AccessDeniedException("No access to this organization type");
+        }
+    }
+    
+    /**
+     * Admins see every organization type; other users only those granted to them.
+     */
+    private boolean canAccess(OrganizationType orgType) {
+        AuthenticatedUser currentUser = securityUtil.getCurrentPrincipal();
+        if (currentUser.getRole() == Role.ADMIN) {
+            return true;
+        }
+        return orgType != null && organizationAccessMatrix.hasAccess(currentUser.getId(), orgType.getId());
+    }
+    
     private AssignmentDTO convertToDTO(Assignment assignment, Map<String, Boolean> fieldValues) {
         AssignmentDTO dto = new AssignmentDTO();
         dto.setId(assignment.getId());
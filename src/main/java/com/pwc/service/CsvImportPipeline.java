@@ -0,0 +1,175 @@
+package com.pwc.service;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Staged CSV import: a reader thread parses records into batches, a worker pool
+ * validates and maps each batch to entities, and the calling thread writes the
+ * mapped batches in file order.
+ *
+ * Mapped batches are handed to the writer through a bounded queue, so a slow
+ * database holds back the reader instead of letting parsed records pile up.
+ */
+@Component
+public class CsvImportPipeline {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CsvImportPipeline.class);
+    
+    private final ThreadPoolExecutor readerPool;
+    private final ExecutorService workerPool;
+    private final int queueCapacity;
+    
+    public CsvImportPipeline(@Value("${app.import.pipeline.workers:0}") int workers,
+                             @Value("${app.import.pipeline.queue-capacity:8}") int queueCapacity) {
+        int workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.readerPool = (ThreadPoolExecutor) Executors.newCachedThreadPool(daemonThreads("csv-reader-"));
+        this.workerPool = Executors.newFixedThreadPool(workerCount, daemonThreads("csv-worker-"));
+        this.queueCapacity = queueCapacity;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        readerPool.shutdownNow();
+        workerPool.shutdownNow();
+    }
+    
+    /**
+     * Runs the parser through the pipeline.
+     *
+     * @param mapper maps a record to its entity, or returns null after rejecting it through
+     *               {@code progress}; exceptions reject the record as well
+     * @param writer saves a batch of entities together with their record numbers; always
+     *               called on the calling thread, in file order
+     */
+    public <T> void run(CSVParser parser, int batchSize, ImportProgress progress,
+                        Function<CSVRecord, T> mapper, BiConsumer<List<T>, List<Long>> writer) {
+        BlockingQueue<Future<MappedBatch<T>>> mapped = new ArrayBlockingQueue<>(queueCapacity);
+        Future<?> reader = readerPool.submit(() -> {
+            read(parser, batchSize, progress, mapper, mapped);
+            return null;
+        });
+        
+        boolean finished = false;
+        try {
+            while (true) {
+                MappedBatch<T> batch = mapped.take().get();
+                if (batch == null) {
+                    break;
+                }
+                if (progress.isCancelled()) {
+                    // Mapped but never written; counted so that the progress still adds up
+                    progress.recordCancelled(batch.entities().size());
+                } else if (!batch.entities().isEmpty()) {
+                    writer.accept(batch.entities(), batch.recordNumbers());
+                }
+            }
+            // Surfaces a parse failure in the reader
+            reader.get();
+            finished = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            if (!finished) {
+                // Nothing takes from the queue anymore: drop the mapped batches and unblock
+                // a reader waiting on the full queue
+                mapped.clear();
+                reader.cancel(true);
+            }
+        }
+    }
+    
+    private <T> void read(CSVParser parser, int batchSize, ImportProgress progress, Function<CSVRecord, T> mapper,
+                          BlockingQueue<Future<MappedBatch<T>>> mapped) throws InterruptedException {
+        boolean cancelled = false;
+        try {
+            List<CSVRecord> records = new ArrayList<>(batchSize);
+            for (CSVRecord record : parser) {
+                if (progress.isCancelled()) {
+                    return;
+                }
+                records.add(record);
+                if (records.size() >= batchSize) {
+                    mapped.put(submitBatch(records, progress, mapper));
+                    records = new ArrayList<>(batchSize);
+                }
+            }
+            if (!records.isEmpty() && !progress.isCancelled()) {
+                mapped.put(submitBatch(records, progress, mapper));
+            }
+        } catch (InterruptedException e) {
+            // Cancelled by run, which no longer takes from the queue
+            cancelled = true;
+            throw e;
+        } finally {
+            if (!cancelled) {
+                // End of input marker
+                mapped.put(CompletableFuture.completedFuture(null));
+            }
+        }
+    }
+    
+    /**
+     * Number of reader threads still reading an import.
+     */
+    int activeReaders() {
+        return readerPool.getActiveCount();
+    }
+    
+    private <T> Future<MappedBatch<T>> submitBatch(List<CSVRecord> records, ImportProgress progress,
+                                                   Function<CSVRecord, T> mapper) {
+        return workerPool.submit(() -> {
+            List<T> entities = new ArrayList<>(records.size());
+            List<Long> recordNumbers = new ArrayList<>(records.size());
+            for (CSVRecord record : records) {
+                progress.recordProcessed();
+                try {
+                    T entity = mapper.apply(record);
+                    if (entity != null) {
+                        entities.add(entity);
+                        recordNumbers.add(record.getRecordNumber());
+                    }
+                } catch (Exception e) {
+                    progress.reject(record.getRecordNumber(), ImportProgress.RejectionReason.EXCEPTION, e.getMessage());
+                    logger.error("SKIP [Line {}]: Exception while processing record - {}", record.getRecordNumber(), e.getMessage(), e);
+                }
+            }
+            return new MappedBatch<>(entities, recordNumbers);
+        });
+    }
+    
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    private record MappedBatch<T>(List<T> entities, List<Long> recordNumbers) {
+    }
+}
@@ -2,9 +2,15 @@ package com.pwc.service;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.commons.csv.CSVFormat;
@@ -12,13 +18,17 @@ import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.pwc.dto.EmployeeCreateDTO;
@@ -27,6 +37,9 @@ import com.pwc.dto.EmployeeUpdateDTO;
 import com.pwc.dto.PageResponse;
 import com.pwc.model.Employee;
 import com.pwc.repository.EmployeeRepository;
+import com.pwc.util.KeysetPaginator;
+import com.pwc.util.KeysetPaginator.SortKey;
+import com.pwc.util.SortRegistry;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -36,34 +49,71 @@ public class EmployeeService {
     
     private static final Logger logger = LoggerFactory.getLogger(EmployeeService.class);
     
+    // Each key is backed by a (column, id) index on Employee
+    private static final SortRegistry SORTS = SortRegistry.builder("employees", "id", "e.id")
+            .addId("id")
+            .add("employeeId", "employeeId", "e.employeeId", String.class)
+            .add("firstName", "firstName", "e.firstName", String.class)
+            .add("lastName", "lastName", "e.lastName", String.class)
+            .add("positionId", "positionId", "e.positionId", String.class)
+            .add("positionTitle", "positionTitle", "e.positionTitle", String.class)
+            .add("email", "email", "e.email", String.class)
+            .build();
+    
+    // Reader buffer for CSV uploads; also the most that is read ahead to detect the delimiter
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    
     private final EmployeeRepository employeeRepository;
+    private final ReportDataVersion reportDataVersion;
+    private final TransactionTemplate transactionTemplate;
+    private final CsvImportPipeline csvImportPipeline;
+    private final SearchIndex searchIndex;
+    private final KeysetPaginator keysetPaginator;
+    private final PageCountCache pageCountCache;
+    
+    // Search matches fetched with one IN query when sorting by a column other than id
+    @Value("${app.search.employees.max-in-list:1000}")
+    private int searchMaxInList;
+    
+    // Rows inserted per transaction (and JDBC batch) during CSV import
+    @Value("${app.import.batch-size:500}")
+    private int importBatchSize;
     
     @PersistenceContext
     private EntityManager entityManager;
     
-    public EmployeeService(EmployeeRepository employeeRepository) {
+    public EmployeeService(EmployeeRepository employeeRepository, ReportDataVersion reportDataVersion,
+                           PlatformTransactionManager transactionManager, CsvImportPipeline csvImportPipeline,
+                           SearchIndex searchIndex, KeysetPaginator keysetPaginator,
+                           PageCountCache pageCountCache) {
         this.employeeRepository = employeeRepository;
+        this.reportDataVersion = reportDataVersion;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.csvImportPipeline = csvImportPipeline;
+        this.searchIndex = searchIndex;
+        this.keysetPaginator = keysetPaginator;
+        this.pageCountCache = pageCountCache;
     }
     
     public PageResponse<EmployeeDTO> getAllEmployees(int page, int size, String sortBy, String sortDir, String search) {
-        Sort sort = sortDir.equalsIgnoreCase("desc") 
-                ? Sort.by(sortBy).descending() 
-                : Sort.by(sortBy).ascending();
-        
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = PageRequest.of(page, size, SORTS.sort(sortBy, sortDir));
         
         Page<Employee> employeePage;
+        boolean totalEstimated = false;
         if (search != null && !search.trim().isEmpty()) {
-            employeePage = employeeRepository.searchEmployees(search.trim(), pageable);
+            employeePage = searchEmployees(search.trim(), pageable);
         } else {
-            employeePage = employeeRepository.findAll(pageable);
+            PageCountCache.Total total = pageCountCache.unfiltered(PageCountCache.EMPLOYEES, "employees",
+                    employeeRepository::count);
+            employeePage = new PageImpl<>(employeeRepository.findAllBy(pageable), pageable, total.count());
+            totalEstimated = total.estimated();
         }
         
         List<EmployeeDTO> content = employeePage.getContent().stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
         
-        return new PageResponse<>(
+        PageResponse<EmployeeDTO> response = new PageResponse<>(
                 content,
                 employeePage.getNumber(),
                 employeePage.getSize(),
@@ -71,6 +121,95 @@ public class EmployeeService {
                 employeePage.getTotalPages(),
                 employeePage.isLast()
         );
+        response.setTotalElementsEstimated(totalEstimated);
+        return response;
+    }
+    
+    /**
+     * Cursor (keyset) variant of {@link #getAllEmployees}: returns the page after
+     * {@code cursor} (the first one when empty) and skips the count unless
+     * {@code includeTotal} is set. Searches filter by the ids from the search index when
+     * there are few enough matches for one IN list.
+     */
+    public PageResponse<EmployeeDTO> getEmployeesByCursor(String cursor, int size, String sortBy, String sortDir,
+                                                          String search, boolean includeTotal) {
+        SortKey sortKey = SORTS.keysetKey(sortBy);
+        
+        String where = null;
+        Map<String, Object> parameters = Map.of();
+        PageCountCache.Total total = null;
+        if (search != null && !search.trim().isEmpty()) {
+            String trimmed = search.trim();
+            long[] matches = searchIndex.searchEmployees(trimmed);
+            if (matches.length == 0) {
+                return PageResponse.ofCursor(List.of(), size, includeTotal ? 0L : null, false, null);
+            }
+            if (matches.length <= searchMaxInList) {
+                where = "e.id IN :ids";
+                parameters = Map.of("ids", Arrays.stream(matches).boxed().toList());
+                total = new PageCountCache.Total(matches.length, false);
+            } else {
+                where = "LOWER(e.firstName) LIKE :search OR LOWER(e.lastName) LIKE :search "
+                        + "OR LOWER(e.email) LIKE :search OR LOWER(e.employeeId) LIKE :search";
+                parameters = Map.of("search", "%" + trimmed.toLowerCase() + "%");
+                if (includeTotal) {
+                    total = countSearchMatches(trimmed);
+                }
+            }
+        } else if (includeTotal) {
+            total = pageCountCache.unfiltered(PageCountCache.EMPLOYEES, "employees", employeeRepository::count);
+        }
+        
+        KeysetPaginator.Slice<Employee> slice = keysetPaginator.fetch(
+                new KeysetPaginator.Query<>(Employee.class, "e", "FROM Employee e", where, parameters, "e.id"),
+                sortKey, !sortDir.equalsIgnoreCase("desc"), cursor, size);
+        
+        List<EmployeeDTO> content = slice.content().stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        return PageResponse.ofCursor(content, size, includeTotal ? total.count() : null,
+                includeTotal && total.estimated(), slice.nextCursor());
+    }
+    
+    /**
+     * Resolves the matching ids from the search index and loads only the requested page.
+     * Sorted by id, the page is cut from the (id-ordered) matches directly; other sorts
+     * let the database order the matches, unless there are too many for one IN list,
+     * in which case the LIKE query runs instead.
+     */
+    private Page<Employee> searchEmployees(String search, Pageable pageable) {
+        long[] matches = searchIndex.searchEmployees(search);
+        Sort.Order order = pageable.getSort().iterator().next();
+        
+        if (order.getProperty().equals("id")) {
+            int from = (int) Math.min(pageable.getOffset(), matches.length);
+            int to = Math.min(from + pageable.getPageSize(), matches.length);
+            List<Long> pageIds = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                pageIds.add(order.isAscending() ? matches[i] : matches[matches.length - 1 - i]);
+            }
+            Map<Long, Employee> byId = employeeRepository.findAllById(pageIds).stream()
+                    .collect(Collectors.toMap(Employee::getId, Function.identity()));
+            List<Employee> content = pageIds.stream()
+                    .map(byId::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            return new PageImpl<>(content, pageable, matches.length);
+        }
+        
+        if (matches.length <= searchMaxInList) {
+            List<Long> ids = Arrays.stream(matches).boxed().toList();
+            List<Employee> content = matches.length == 0 ? List.of() : employeeRepository.findByIdIn(ids, pageable);
+            return new PageImpl<>(content, pageable, matches.length);
+        }
+        
+        return new PageImpl<>(employeeRepository.searchEmployees(search, pageable), pageable,
+                countSearchMatches(search).count());
+    }
+    
+    private PageCountCache.Total countSearchMatches(String search) {
+        return pageCountCache.filtered(PageCountCache.EMPLOYEES, "search:" + search.toLowerCase(),
+                () -> employeeRepository.countSearchEmployees(search));
     }
     
     public EmployeeDTO getEmployeeById(Long id) {
@@ -155,6 +294,8 @@ public class EmployeeService {
         employee.setEmail(employeeCreateDTO.getEmail());
         
         Employee savedEmployee = employeeRepository.save(employee);
+        searchIndex.indexEmployee(savedEmployee);
+        pageCountCache.invalidate(PageCountCache.EMPLOYEES);
         return convertToDTO(savedEmployee);
     }
     
@@ -186,6 +327,11 @@ public class EmployeeService {
         }
         
         Employee updatedEmployee = employeeRepository.save(employee);
+        searchIndex.indexEmployee(updatedEmployee);
+        // Names and email are searched by both listings
+        pageCountCache.invalidate(PageCountCache.EMPLOYEES, PageCountCache.ASSIGNMENTS);
+        // Position fields appear in the Assign Roles report
+        reportDataVersion.bump();
         return convertToDTO(updatedEmployee);
     }
     
@@ -195,37 +341,50 @@ public class EmployeeService {
             throw new RuntimeException("Employee not found");
         }
         employeeRepository.deleteById(id);
+        searchIndex.removeEmployee(id);
+        pageCountCache.invalidate(PageCountCache.EMPLOYEES, PageCountCache.ASSIGNMENTS);
+        reportDataVersion.bump();
     }
     
     public int importEmployeesFromCsv(MultipartFile file) {
-        int importedCount = 0;
-        int skippedCount = 0;
-        int totalRecordsProcessed = 0;
-        int emptyFieldsCount = 0;
-        int saveErrorCount = 0;
-        int exceptionCount = 0;
-        
-        logger.info("Starting CSV import process for file: {}", file.getOriginalFilename());
+        try (InputStream input = file.getInputStream()) {
+            return importEmployeesFromCsv(input, file.getOriginalFilename(), new ImportProgress());
+        } catch (IOException e) {
+            logger.error("Error reading CSV file: {}", e.getMessage(), e);
+            throw new RuntimeException("Error reading CSV file: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Imports employees from a CSV stream, reporting counters and rejected rows to
+     * {@code progress}. Stops early when the progress is cancelled; chunks saved
+     * before that stay committed.
+     * 
+     * @return number of employees imported
+     */
+    public int importEmployeesFromCsv(InputStream input, String fileName, ImportProgress progress) {
+        logger.info("Starting CSV import process for file: {}", fileName);
         
-        try {
-            // Read file content into memory first
-            String fileContent = new String(file.getBytes(), StandardCharsets.UTF_8);
+        // Stream the upload instead of loading it into memory, so file size does not drive heap usage
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(input, StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
             
-            // Detect delimiter (comma or pipe)
-            char delimiter = detectDelimiter(fileContent);
+            // Detect delimiter (comma or pipe) from the header line, then rewind so the parser sees it too
+            reader.mark(READ_BUFFER_SIZE);
+            char delimiter = detectDelimiter(readFirstLine(reader));
+            reader.reset();
             logger.info("Detected delimiter: '{}'", delimiter);
             
-            // Parse CSV with detected delimiter
-            try (BufferedReader reader = new BufferedReader(new StringReader(fileContent));
-                 CSVParser csvParser = CSVFormat.DEFAULT
-                         .builder()
-                         .setDelimiter(delimiter)
-                         .setHeader()
-                         .setSkipHeaderRecord(true)
-                         .setIgnoreHeaderCase(true)
-                         .setTrim(true)
-                         .build()
-                         .parse(reader)) {
+            // Parse CSV with detected delimiter; records are read one at a time
+            try (CSVParser csvParser = CSVFormat.DEFAULT
+                    .builder()
+                    .setDelimiter(delimiter)
+                    .setHeader()
+                    .setSkipHeaderRecord(true)
+                    .setIgnoreHeaderCase(true)
+                    .setTrim(true)
+                    .build()
+                    .parse(reader)) {
             
                 // Get header map
                 var headerMap = csvParser.getHeaderMap();
@@ -262,116 +421,31 @@ public class EmployeeService {
                     throw new RuntimeException("CSV must contain: employeeId column");
                 }
                 
-                // Process each record
-                for (CSVRecord record : csvParser) {
-                    totalRecordsProcessed++;
-                    long recordNumber = record.getRecordNumber();
-                    
-                    try {
-                        // Get employeeId (required)
-                        String employeeId = record.get(employeeIdColumn).trim();
-                        
-                        // Check if employeeId is empty (only required field)
-                        if (employeeId.isEmpty()) {
-                            skippedCount++;
-                            emptyFieldsCount++;
-                            logger.warn("SKIP [Line {}]: EmployeeID is required and cannot be empty", recordNumber);
-                            continue;
-                        }
-                        
-                        // Get optional fields (can be empty)
-                        String email = null;
-                        String firstName = null;
-                        String lastName = null;
-                        
-                        if (emailColumn != null && record.isMapped(emailColumn)) {
-                            String emailValue = record.get(emailColumn).trim();
-                            if (!emailValue.isEmpty()) {
-                                email = emailValue;
-                            }
-                        }
-                        
-                        if (firstNameColumn != null && record.isMapped(firstNameColumn)) {
-                            String firstNameValue = record.get(firstNameColumn).trim();
-                            if (!firstNameValue.isEmpty()) {
-                                firstName = firstNameValue;
-                            }
-                        }
-                        
-                        if (lastNameColumn != null && record.isMapped(lastNameColumn)) {
-                            String lastNameValue = record.get(lastNameColumn).trim();
-                            if (!lastNameValue.isEmpty()) {
-                                lastName = lastNameValue;
-                            }
-                        }
-                        
-                        // Get optional fields
-                        String positionId = null;
-                        String positionTitle = null;
-                        
-                        if (positionIdColumn != null && record.isMapped(positionIdColumn)) {
-                            String positionIdValue = record.get(positionIdColumn).trim();
-                            if (!positionIdValue.isEmpty()) {
-                                positionId = positionIdValue;
-                            }
-                        }
-                        if (positionTitleColumn != null && record.isMapped(positionTitleColumn)) {
-                            String positionTitleValue = record.get(positionTitleColumn).trim();
-                            if (!positionTitleValue.isEmpty()) {
-                                positionTitle = positionTitleValue;
-                            }
-                        }
-                        
-                        // Allow duplicate employeeIds (same employee can have different roles/positions)
-                        Employee employee = new Employee();
-                        employee.setEmployeeId(employeeId);
-                        
-                        if (email != null) {
-                            employee.setEmail(email);
-                        }
-                        if (firstName != null) {
-                            employee.setFirstName(firstName);
-                        }
-                        if (lastName != null) {
-                            employee.setLastName(lastName);
-                        }
-                        if (positionId != null) {
-                            employee.setPositionId(positionId);
-                        }
-                        if (positionTitle != null) {
-                            employee.setPositionTitle(positionTitle);
-                        }
-                        
-                        // Save employee in separate transaction to avoid rollback affecting other records
-                        if (saveEmployeeInNewTransaction(employee)) {
-                            importedCount++;
-                            if (importedCount % 100 == 0) {
-                                logger.debug("Progress: {} employees imported so far", importedCount);
-                            }
-                        } else {
-                            skippedCount++;
-                            saveErrorCount++;
-                            logger.error("SKIP [Line {}]: Failed to save employee. EmployeeID: '{}'", 
-                                recordNumber, employeeId);
-                        }
-                        
-                    } catch (Exception e) {
-                        skippedCount++;
-                        exceptionCount++;
-                        logger.error("SKIP [Line {}]: Exception while processing record - {}", recordNumber, e.getMessage(), e);
-                        // Continue processing other rows
-                    }
+                EmployeeCsvColumns columns = new EmployeeCsvColumns(employeeIdColumn, emailColumn, firstNameColumn,
+                        lastNameColumn, positionIdColumn, positionTitleColumn);
+                
+                // Records are mapped on the pipeline's workers and saved here in chunks, one transaction per chunk
+                csvImportPipeline.run(csvParser, importBatchSize, progress,
+                        record -> mapEmployeeRecord(record, columns, progress),
+                        (employees, recordNumbers) -> {
+                            saveEmployeeChunk(employees, recordNumbers, progress);
+                            logger.debug("Progress: {} employees imported so far", progress.getImported());
+                        });
+                
+                if (progress.isCancelled()) {
+                    logger.info("CSV import cancelled after {} records, {} of them discarded unwritten",
+                            progress.getProcessed(), progress.getCancelledRecords());
                 }
             }
             
             // Log summary
             logger.info("=== CSV Import Summary ===");
-            logger.info("Total records processed: {}", totalRecordsProcessed);
-            logger.info("Successfully imported: {}", importedCount);
-            logger.info("Skipped: {}", skippedCount);
-            logger.info("  - Empty required fields: {}", emptyFieldsCount);
-            logger.info("  - Save errors: {}", saveErrorCount);
-            logger.info("  - Exceptions: {}", exceptionCount);
+            logger.info("Total records processed: {}", progress.getProcessed());
+            logger.info("Successfully imported: {}", progress.getImported());
+            logger.info("Skipped: {}", progress.getSkipped());
+            logger.info("  - Empty required fields: {}", progress.getEmptyFields());
+            logger.info("  - Save errors: {}", progress.getSaveErrors());
+            logger.info("  - Exceptions: {}", progress.getExceptions());
             logger.info("===========================");
             
         } catch (IOException e) {
@@ -382,20 +456,70 @@ public class EmployeeService {
             throw new RuntimeException("Error importing CSV: " + e.getMessage(), e);
         }
         
-        return importedCount;
+        return (int) progress.getImported();
     }
     
     /**
-     * Detects the delimiter used in the CSV file (comma or pipe)
-     * by analyzing the first line of the file content
+     * CSV header names of the employee columns; null when the file lacks the column.
      */
-    private char detectDelimiter(String fileContent) {
-        if (fileContent == null || fileContent.isEmpty()) {
-            return ','; // Default to comma
+    private record EmployeeCsvColumns(String employeeId, String email, String firstName, String lastName,
+                                      String positionId, String positionTitle) {
+    }
+    
+    /**
+     * Maps one CSV record to a new employee, or rejects it and returns null if the
+     * required employeeId is empty. Optional fields are trimmed and left null when empty.
+     */
+    private Employee mapEmployeeRecord(CSVRecord record, EmployeeCsvColumns columns, ImportProgress progress) {
+        // Get employeeId (required)
+        String employeeId = record.get(columns.employeeId()).trim();
+        
+        // Check if employeeId is empty (only required field)
+        if (employeeId.isEmpty()) {
+            progress.reject(record.getRecordNumber(), ImportProgress.RejectionReason.EMPTY_REQUIRED_FIELD,
+                "EmployeeID is required and cannot be empty");
+            logger.warn("SKIP [Line {}]: EmployeeID is required and cannot be empty", record.getRecordNumber());
+            return null;
         }
         
-        // Read first line to detect delimiter
-        String firstLine = fileContent.split("\n", 2)[0];
+        // Allow duplicate employeeIds (same employee can have different roles/positions)
+        Employee employee = new Employee();
+        employee.setEmployeeId(employeeId);
+        employee.setEmail(optionalValue(record, columns.email()));
+        employee.setFirstName(optionalValue(record, columns.firstName()));
+        employee.setLastName(optionalValue(record, columns.lastName()));
+        employee.setPositionId(optionalValue(record, columns.positionId()));
+        employee.setPositionTitle(optionalValue(record, columns.positionTitle()));
+        return employee;
+    }
+    
+    private String optionalValue(CSVRecord record, String column) {
+        if (column == null || !record.isMapped(column)) {
+            return null;
+        }
+        String value = record.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+    
+    /**
+     * Reads the first line of the file without consuming more than the reader's
+     * mark limit, so the caller can reset to the start of the file afterwards.
+     * A header longer than the limit is cut off, which is enough to sniff the delimiter.
+     */
+    private String readFirstLine(BufferedReader reader) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int ch;
+        while (line.length() < READ_BUFFER_SIZE - 1 && (ch = reader.read()) != -1 && ch != '\n' && ch != '\r') {
+            line.append((char) ch);
+        }
+        return line.toString();
+    }
+    
+    /**
+     * Detects the delimiter used in the CSV file (comma or pipe)
+     * by analyzing its first line
+     */
+    private char detectDelimiter(String firstLine) {
         if (firstLine == null || firstLine.isEmpty()) {
             return ','; // Default to comma
         }
@@ -409,10 +533,45 @@ public class EmployeeService {
         return pipeCount > commaCount ? '|' : ',';
     }
     
+    /**
+     * Saves a chunk of employees in one transaction so the inserts go out as JDBC batches.
+     * If the chunk fails it is retried row by row, so only the offending rows are skipped.
+     */
+    private void saveEmployeeChunk(List<Employee> chunk, List<Long> lineNumbers, ImportProgress progress) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                employeeRepository.saveAll(chunk);
+                employeeRepository.flush();
+                searchIndex.indexEmployees(chunk);
+                pageCountCache.invalidate(PageCountCache.EMPLOYEES);
+            });
+            progress.recordImported(chunk.size());
+            return;
+        } catch (Exception e) {
+            logger.warn("Batch of {} employees failed, retrying row by row: {}", chunk.size(), e.getMessage());
+        }
+        
+        for (int i = 0; i < chunk.size(); i++) {
+            Employee employee = chunk.get(i);
+            // Discard the id assigned during the rolled back batch
+            employee.setId(null);
+            if (saveEmployeeInNewTransaction(employee)) {
+                progress.recordImported(1);
+            } else {
+                progress.reject(lineNumbers.get(i), ImportProgress.RejectionReason.SAVE_ERROR,
+                    "Failed to save employee. EmployeeID: '" + employee.getEmployeeId() + "'");
+                logger.error("SKIP [Line {}]: Failed to save employee. EmployeeID: '{}'", 
+                    lineNumbers.get(i), employee.getEmployeeId());
+            }
+        }
+    }
+    
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public boolean saveEmployeeInNewTransaction(Employee employee) {
         try {
             employeeRepository.save(employee);
+            searchIndex.indexEmployee(employee);
+            pageCountCache.invalidate(PageCountCache.EMPLOYEES);
             return true;
         } catch (Exception e) {
             // Log error but don't throw - return false to indicate failure
@@ -1,19 +1,47 @@
 package com.pwc.service;
 
-import com.pwc.model.Assignment;
-import com.pwc.model.Employee;
-import com.pwc.repository.AssignmentRepository;
+import com.pwc.dto.AssignmentReportRow;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 /**
  * Service to generate Excel reports using hardcoded format configuration.
@@ -23,33 +51,203 @@ import java.util.List;
 @Service
 public class ExcelReportService {
     
+    private static final Logger logger = LoggerFactory.getLogger(ExcelReportService.class);
+    
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
-    private final AssignmentRepository assignmentRepository;
+    // How often (in data rows) progress is reported to the caller
+    private static final int PROGRESS_INTERVAL = 1000;
+    
+    // Number of rows SXSSF keeps in memory before flushing them to its temp file
+    @Value("${app.report.row-window:500}")
+    private int rowWindow;
+    
+    // JDBC fetch size used while scrolling assignments for the report
+    @Value("${app.report.fetch-size:500}")
+    private int fetchSize;
+    
+    // Render data rows on a fork-join pool in positionId-aligned shards instead of a single loop
+    @Value("${app.report.parallel.enabled:false}")
+    private boolean parallelEnabled;
+    
+    // Minimum number of rows per shard; shards are extended to the end of the current positionId run
+    @Value("${app.report.parallel.shard-size:5000}")
+    private int shardSize;
+    
+    // Directory holding the cached report file
+    @Value("${app.report.spool-dir:./reports}")
+    private String spoolDir;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private final ReportDataVersion reportDataVersion;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ForkJoinPool renderPool;
+    
+    // Guards generation and replacement of the cached report
+    private final ReentrantLock cacheLock = new ReentrantLock();
+    private volatile CachedReport cachedReport;
+    
+    public ExcelReportService(ReportDataVersion reportDataVersion, PlatformTransactionManager transactionManager,
+                              @Value("${app.report.parallel.threads:0}") int parallelThreads) {
+        this.reportDataVersion = reportDataVersion;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.renderPool = new ForkJoinPool(parallelThreads > 0 ? parallelThreads : Runtime.getRuntime().availableProcessors());
+    }
+    
+    @PreDestroy
+    public void shutdownRenderPool() {
+        renderPool.shutdownNow();
+    }
+    
+    /**
+     * A generated report file together with the data version it was built from.
+     */
+    public record CachedReport(long dataVersion, Path file, long rowCount, LocalDateTime generatedAt) {
+        
+        public String fileName() {
+            return "Assign_Roles_" + generatedAt.format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmm")) + ".xlsx";
+        }
+    }
+    
+    @PostConstruct
+    public void initSpoolDir() throws IOException {
+        Path dir = Paths.get(spoolDir);
+        Files.createDirectories(dir);
+        // Files cached by a previous run cannot be matched to the current data version
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(file -> file.getFileName().toString().contains(".xlsx"))
+                    .forEach(this::deleteQuietly);
+        }
+    }
+    
+    /**
+     * Returns the cached report for the current data version, generating it first
+     * if the data changed since it was last built. Concurrent callers wait for a
+     * single generation instead of each building their own copy.
+     */
+    public CachedReport getFullReport(LongConsumer progress) throws IOException {
+        cacheLock.lock();
+        try {
+            return ensureCurrentReport(progress);
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+    
+    /**
+     * Copies the current report to the given output stream, generating it first if needed.
+     */
+    public void copyFullReport(OutputStream outputStream) throws IOException {
+        InputStream inputStream;
+        cacheLock.lock();
+        try {
+            // Opened under the lock so a concurrent regeneration cannot delete the file first
+            inputStream = Files.newInputStream(ensureCurrentReport(rowsWritten -> { }).file());
+        } finally {
+            cacheLock.unlock();
+        }
+        try (inputStream) {
+            inputStream.transferTo(outputStream);
+        }
+    }
+    
+    private CachedReport ensureCurrentReport(LongConsumer progress) throws IOException {
+        // Read before generating, so changes committed while the report is written invalidate it
+        long version = reportDataVersion.current();
+        
+        CachedReport cached = cachedReport;
+        if (cached != null && cached.dataVersion() == version && Files.exists(cached.file())) {
+            progress.accept(cached.rowCount());
+            return cached;
+        }
+        
+        Path dir = Paths.get(spoolDir);
+        Path target = dir.resolve("Assign_Roles_v" + version + ".xlsx");
+        Path temp = dir.resolve("Assign_Roles_v" + version + ".xlsx.tmp");
+        long[] rowCount = new long[1];
+        long startedAt = System.currentTimeMillis();
+        
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    try {
+                        writeFullReport(out, rowsWritten -> {
+                            rowCount[0] = rowsWritten;
+                            progress.accept(rowsWritten);
+                        });
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (UncheckedIOException e) {
+            deleteQuietly(temp);
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+        
+        cachedReport = new CachedReport(version, target, rowCount[0], LocalDateTime.now());
+        if (cached != null && !cached.file().equals(target)) {
+            deleteQuietly(cached.file());
+        }
+        logger.info("Generated Assign Roles report for data version {} ({} rows, {} ms, {})", version, rowCount[0],
+                System.currentTimeMillis() - startedAt, parallelEnabled ? "parallel" : "sequential");
+        return cachedReport;
+    }
+    
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete cached report {}", file, e);
+        }
+    }
     
-    public ExcelReportService(AssignmentRepository assignmentRepository) {
-        this.assignmentRepository = assignmentRepository;
+    /**
+     * Streams the full report to the given output stream.
+     * 
+     * Uses a windowed SXSSF workbook so only the last {@code app.report.row-window}
+     * rows are kept in memory; older rows are flushed to a temp file and the
+     * finished workbook is written straight to the output stream.
+     */
+    @Transactional(readOnly = true)
+    public void writeFullReport(OutputStream outputStream) throws IOException {
+        writeFullReport(outputStream, rowsWritten -> { });
     }
     
-    public byte[] generateFullReport() throws IOException {
-        try (XSSFWorkbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+    /**
+     * Same as {@link #writeFullReport(OutputStream)}, reporting the number of
+     * data rows written so far to {@code progress} as generation advances.
+     */
+    @Transactional(readOnly = true)
+    public void writeFullReport(OutputStream outputStream, LongConsumer progress) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(new XSSFWorkbook(), rowWindow);
+        try {
+            // Styles and formats are created on the backing XSSF workbook and shared by the streaming sheets
+            XSSFWorkbook styles = workbook.getXSSFWorkbook();
             
             // Apply Overview sheet format (from hardcoded config)
             var overviewSheet = workbook.createSheet("Overview");
-            ExcelFormatConfig.applyOverviewSheetFormat(workbook, overviewSheet);
+            ExcelFormatConfig.applyOverviewSheetFormat(styles, overviewSheet);
             
             // Apply Assign Roles sheet format - first 5 rows with headers (from hardcoded config)
             var assignRolesSheet = workbook.createSheet("Assign Roles");
-            ExcelFormatConfig.applyAssignRolesSheetFormat(workbook, assignRolesSheet);
+            ExcelFormatConfig.applyAssignRolesSheetFormat(styles, assignRolesSheet);
             
             // Populate data rows starting from row 6
-            populateAssignRolesData(workbook, assignRolesSheet);
+            populateAssignRolesData(styles, assignRolesSheet, progress);
             
-            // Write to byte array
             workbook.write(outputStream);
-            
-            return outputStream.toByteArray();
+        } finally {
+            // Remove the temp files backing the flushed rows
+            workbook.dispose();
+            workbook.close();
         }
     }
     
@@ -64,14 +262,23 @@ public class ExcelReportService {
      * - L (11): Assignable Role* - employee.positionTitle
      * - O (14): Assignees to Add+ - employee.positionId
      */
-    private void populateAssignRolesData(XSSFWorkbook workbook, Sheet sheet) {
-        // Fetch all assignments ordered by positionId
-        List<Assignment> assignments = assignmentRepository.findAllForReport();
-        
-        if (assignments.isEmpty()) {
-            return;
+    private void populateAssignRolesData(XSSFWorkbook workbook, Sheet sheet, LongConsumer progress) {
+        // Scroll through all assignments ordered by positionId
+        try (Stream<AssignmentReportRow> assignments = streamAssignmentsForReport()) {
+            Iterator<AssignmentReportRow> iterator = assignments.iterator();
+            if (!iterator.hasNext()) {
+                return;
+            }
+            if (parallelEnabled) {
+                writeAssignRolesRowsParallel(workbook, sheet, iterator, progress);
+            } else {
+                writeAssignRolesRows(workbook, sheet, iterator, progress);
+            }
         }
-        
+    }
+    
+    private void writeAssignRolesRows(XSSFWorkbook workbook, Sheet sheet, Iterator<AssignmentReportRow> assignments,
+                                      LongConsumer progress) {
         // Get data row style
         CellStyle dataStyle = ExcelFormatConfig.createDataRowStyle(workbook);
         
@@ -80,58 +287,193 @@ public class ExcelReportService {
         
         // Counters
         int spreadsheetKey = 1;
-        int rowIdCounter = 1;
+        int rowId = 0;
         String previousPositionId = null;
         
-        for (Assignment assignment : assignments) {
-            Employee employee = assignment.getEmployee();
-            String currentPositionId = employee.getPositionId();
-            
-            // Reset rowIdCounter when positionId changes
-            if (previousPositionId != null && !currentPositionId.equals(previousPositionId)) {
-                rowIdCounter = 1;
-            }
+        while (assignments.hasNext()) {
+            AssignmentReportRow assignment = assignments.next();
+            String currentPositionId = assignment.positionId();
+            rowId = nextRowId(rowId, previousPositionId, currentPositionId);
             
-            // Create data row
-            Row row = sheet.createRow(rowIndex);
-            
-            // B (1): Spreadsheet Key*
-            Cell cellB = row.createCell(1);
-            cellB.setCellValue(spreadsheetKey);
-            cellB.setCellStyle(dataStyle);
-            
-            // C (2): Effective Date
-            Cell cellC = row.createCell(2);
-            if (assignment.getCreatedAt() != null) {
-                cellC.setCellValue(assignment.getCreatedAt().format(DATE_FORMATTER));
-            }
-            cellC.setCellStyle(dataStyle);
-            
-            // E (4): Event Target Assignee*
-            Cell cellE = row.createCell(4);
-            cellE.setCellValue(currentPositionId != null ? currentPositionId : "");
-            cellE.setCellStyle(dataStyle);
-            
-            // G (6): Row ID*
-            Cell cellG = row.createCell(6);
-            cellG.setCellValue(rowIdCounter);
-            cellG.setCellStyle(dataStyle);
-            
-            // L (11): Assignable Role*
-            Cell cellL = row.createCell(11);
-            cellL.setCellValue(employee.getPositionTitle() != null ? employee.getPositionTitle() : "");
-            cellL.setCellStyle(dataStyle);
-            
-            // O (14): Assignees to Add+
-            Cell cellO = row.createCell(14);
-            cellO.setCellValue(currentPositionId != null ? currentPositionId : "");
-            cellO.setCellStyle(dataStyle);
+            writeDataRow(sheet, rowIndex, renderRow(assignment, spreadsheetKey, rowId), dataStyle);
             
             // Increment counters
             spreadsheetKey++;
-            rowIdCounter++;
             previousPositionId = currentPositionId;
             rowIndex++;
+            
+            if ((spreadsheetKey - 1) % PROGRESS_INTERVAL == 0) {
+                progress.accept(spreadsheetKey - 1);
+            }
+        }
+        progress.accept(spreadsheetKey - 1);
+    }
+    
+    /**
+     * Parallel variant of {@link #writeAssignRolesRows}.
+     * 
+     * The positionId-ordered rows are cut into shards that end on a positionId boundary.
+     * The reader tracks the Row ID as it goes and hands each shard its first Spreadsheet
+     * Key and the Row ID and positionId of the row before it, so a shard numbers its rows
+     * exactly as the sequential loop would. Shards are rendered on the fork-join pool while
+     * the next ones are read; the rendered rows are then written to the sheet in shard
+     * order on the calling thread, since SXSSF sheets are not thread-safe and rows must
+     * be appended in ascending order.
+     */
+    private void writeAssignRolesRowsParallel(XSSFWorkbook workbook, Sheet sheet,
+                                              Iterator<AssignmentReportRow> assignments, LongConsumer progress) {
+        CellStyle dataStyle = ExcelFormatConfig.createDataRowStyle(workbook);
+        int rowIndex = ExcelFormatConfig.getAssignRolesDataStartRow();
+        
+        // Bound the shards held in memory while the writer catches up
+        int maxInFlight = renderPool.getParallelism() * 2;
+        Deque<ForkJoinTask<List<RenderedRow>>> inFlight = new ArrayDeque<>();
+        
+        List<AssignmentReportRow> shard = new ArrayList<>(shardSize);
+        RowNumbering shardStart = new RowNumbering(1, 0, null);
+        int nextKey = 1;
+        int rowId = 0;
+        String previousPositionId = null;
+        long rowsWritten = 0;
+        
+        while (assignments.hasNext()) {
+            AssignmentReportRow assignment = assignments.next();
+            
+            // Close the shard once it is large enough and a new positionId starts
+            if (shard.size() >= shardSize && !Objects.equals(assignment.positionId(), previousPositionId)) {
+                inFlight.addLast(submitShard(shard, shardStart));
+                shard = new ArrayList<>(shardSize);
+                shardStart = new RowNumbering(nextKey, rowId, previousPositionId);
+                
+                if (inFlight.size() >= maxInFlight) {
+                    List<RenderedRow> rendered = inFlight.removeFirst().join();
+                    rowIndex = writeDataRows(sheet, rowIndex, rendered, dataStyle);
+                    rowsWritten += rendered.size();
+                    progress.accept(rowsWritten);
+                }
+            }
+            
+            shard.add(assignment);
+            nextKey++;
+            rowId = nextRowId(rowId, previousPositionId, assignment.positionId());
+            previousPositionId = assignment.positionId();
+        }
+        if (!shard.isEmpty()) {
+            inFlight.addLast(submitShard(shard, shardStart));
+        }
+        
+        while (!inFlight.isEmpty()) {
+            List<RenderedRow> rendered = inFlight.removeFirst().join();
+            rowIndex = writeDataRows(sheet, rowIndex, rendered, dataStyle);
+            rowsWritten += rendered.size();
+            progress.accept(rowsWritten);
+        }
+    }
+    
+    private ForkJoinTask<List<RenderedRow>> submitShard(List<AssignmentReportRow> shard, RowNumbering start) {
+        return renderPool.submit(() -> {
+            List<RenderedRow> rendered = new ArrayList<>(shard.size());
+            int spreadsheetKey = start.firstKey();
+            int rowId = start.previousRowId();
+            String previousPositionId = start.previousPositionId();
+            for (AssignmentReportRow assignment : shard) {
+                rowId = nextRowId(rowId, previousPositionId, assignment.positionId());
+                rendered.add(renderRow(assignment, spreadsheetKey++, rowId));
+                previousPositionId = assignment.positionId();
+            }
+            return rendered;
+        });
+    }
+    
+    /**
+     * Row ID of a row given the previous row's: back to 1 when the positionId changes,
+     * otherwise one more. A change from a null positionId does not reset it.
+     */
+    private static int nextRowId(int previousRowId, String previousPositionId, String positionId) {
+        return previousPositionId != null && !Objects.equals(positionId, previousPositionId) ? 1 : previousRowId + 1;
+    }
+    
+    /**
+     * Where a shard's numbering starts: its first Spreadsheet Key, and the Row ID and
+     * positionId of the row before it (0 and null for the first shard).
+     */
+    private record RowNumbering(int firstKey, int previousRowId, String previousPositionId) {
+    }
+    
+    private int writeDataRows(Sheet sheet, int rowIndex, List<RenderedRow> rows, CellStyle dataStyle) {
+        for (RenderedRow rendered : rows) {
+            writeDataRow(sheet, rowIndex++, rendered, dataStyle);
+        }
+        return rowIndex;
+    }
+    
+    /**
+     * Cell values of one Assign Roles data row, computed independently of the workbook.
+     */
+    private record RenderedRow(int spreadsheetKey, String effectiveDate, String positionId, int rowId,
+                               String positionTitle) {
+    }
+    
+    private RenderedRow renderRow(AssignmentReportRow assignment, int spreadsheetKey, int rowId) {
+        return new RenderedRow(
+                spreadsheetKey,
+                assignment.createdAt() != null ? assignment.createdAt().format(DATE_FORMATTER) : null,
+                assignment.positionId() != null ? assignment.positionId() : "",
+                rowId,
+                assignment.positionTitle() != null ? assignment.positionTitle() : "");
+    }
+    
+    private void writeDataRow(Sheet sheet, int rowIndex, RenderedRow rendered, CellStyle dataStyle) {
+        // Create data row
+        Row row = sheet.createRow(rowIndex);
+        
+        // B (1): Spreadsheet Key*
+        Cell cellB = row.createCell(1);
+        cellB.setCellValue(rendered.spreadsheetKey());
+        cellB.setCellStyle(dataStyle);
+        
+        // C (2): Effective Date
+        Cell cellC = row.createCell(2);
+        if (rendered.effectiveDate() != null) {
+            cellC.setCellValue(rendered.effectiveDate());
         }
+        cellC.setCellStyle(dataStyle);
+        
+        // E (4): Event Target Assignee*
+        Cell cellE = row.createCell(4);
+        cellE.setCellValue(rendered.positionId());
+        cellE.setCellStyle(dataStyle);
+        
+        // G (6): Row ID*
+        Cell cellG = row.createCell(6);
+        cellG.setCellValue(rendered.rowId());
+        cellG.setCellStyle(dataStyle);
+        
+        // L (11): Assignable Role*
+        Cell cellL = row.createCell(11);
+        cellL.setCellValue(rendered.positionTitle());
+        cellL.setCellStyle(dataStyle);
+        
+        // O (14): Assignees to Add+
+        Cell cellO = row.createCell(14);
+        cellO.setCellValue(rendered.positionId());
+        cellO.setCellStyle(dataStyle);
+    }
+    
+    /**
+     * Forward-only scroll over the report columns of all assignments, ordered by
+     * positionId. Rows are read-only projections, so nothing accumulates in the
+     * persistence context. Must be consumed inside a transaction and closed afterwards.
+     */
+    private Stream<AssignmentReportRow> streamAssignmentsForReport() {
+        return entityManager.createQuery(
+                        "SELECT new com.pwc.dto.AssignmentReportRow(a.createdAt, e.positionId, e.positionTitle) " +
+                        "FROM Assignment a " +
+                        "JOIN a.employee e " +
+                        "JOIN a.organizationDetail od " +
+                        "ORDER BY e.positionId ASC, a.createdAt ASC", AssignmentReportRow.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
     }
 }
@@ -0,0 +1,266 @@
+package com.pwc.service;
+
+import com.pwc.dto.ImportJobDTO;
+import com.pwc.exception.TooManyRequestsException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs employee and organization detail CSV imports in the background.
+ *
+ * The upload is copied to a spool directory on the request thread and imported on a
+ * bounded executor. Progress counters come from the same {@link ImportProgress} the
+ * synchronous import uses, and rejected rows are written to a per-job CSV report.
+ */
+@Service
+public class ImportJobService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+    
+    public enum ImportType {
+        EMPLOYEES, ORGANIZATION_DETAILS
+    }
+    
+    private final EmployeeService employeeService;
+    private final OrganizationDetailService organizationDetailService;
+    private final Path spoolDir;
+    private final int retainedJobs;
+    private final ThreadPoolExecutor executor;
+    
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    
+    public ImportJobService(EmployeeService employeeService,
+                            OrganizationDetailService organizationDetailService,
+                            @Value("${app.import.spool-dir:./imports}") String spoolDir,
+                            @Value("${app.import.jobs.threads:2}") int threads,
+                            @Value("${app.import.jobs.queue-capacity:10}") int queueCapacity,
+                            @Value("${app.import.jobs.retained:20}") int retainedJobs) {
+        this.employeeService = employeeService;
+        this.organizationDetailService = organizationDetailService;
+        this.spoolDir = Paths.get(spoolDir);
+        this.retainedJobs = retainedJobs;
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "import-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+    
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(spoolDir);
+        // Uploads and rejection reports from a previous run are not tracked by any job
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            files.forEach(this::deleteQuietly);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    /**
+     * Copies the upload to the spool directory and queues its import.
+     */
+    public ImportJobDTO submit(ImportType type, MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("File is empty");
+        }
+        
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), type, file.getOriginalFilename(),
+                spoolDir);
+        try {
+            // The multipart temp file is removed when the request ends
+            file.transferTo(job.upload);
+        } catch (IOException e) {
+            throw new RuntimeException("Error storing uploaded file: " + e.getMessage(), e);
+        }
+        
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            deleteQuietly(job.upload);
+            throw new TooManyRequestsException("Too many imports queued. Please try again later.");
+        }
+        
+        return toDTO(job);
+    }
+    
+    public ImportJobDTO getJob(String id) {
+        return toDTO(findJob(id));
+    }
+    
+    /**
+     * Requests cancellation. A queued job never starts; a running one stops after the
+     * current record, keeping the rows it already saved.
+     */
+    public ImportJobDTO cancel(String id) {
+        ImportJob job = findJob(id);
+        if (job.status != ImportJobStatus.QUEUED && job.status != ImportJobStatus.RUNNING) {
+            throw new RuntimeException("Import job has already finished");
+        }
+        job.progress.cancel();
+        return toDTO(job);
+    }
+    
+    /**
+     * Returns the rejection report of a finished job.
+     */
+    public Path getRejectionReport(String id) {
+        ImportJob job = findJob(id);
+        if (job.status == ImportJobStatus.QUEUED || job.status == ImportJobStatus.RUNNING) {
+            throw new RuntimeException("Import job has not finished yet");
+        }
+        if (!Files.exists(job.rejections)) {
+            throw new RuntimeException("Rejection report not available");
+        }
+        return job.rejections;
+    }
+    
+    private ImportJob findJob(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) {
+            throw new RuntimeException("Import job not found");
+        }
+        return job;
+    }
+    
+    private void run(ImportJob job) {
+        if (job.progress.isCancelled()) {
+            finish(job, ImportJobStatus.CANCELLED);
+            return;
+        }
+        job.status = ImportJobStatus.RUNNING;
+        
+        ImportJobStatus outcome;
+        try (CSVPrinter rejections = new CSVPrinter(
+                Files.newBufferedWriter(job.rejections, StandardCharsets.UTF_8),
+                CSVFormat.DEFAULT.builder().setHeader("record", "reason", "detail").build());
+             InputStream input = Files.newInputStream(job.upload)) {
+            
+            job.progress.setRejections(rejections);
+            if (job.type == ImportType.EMPLOYEES) {
+                employeeService.importEmployeesFromCsv(input, job.fileName, job.progress);
+            } else {
+                organizationDetailService.importOrganizationDetailsFromCsv(input, job.progress);
+            }
+            outcome = job.progress.isCancelled() ? ImportJobStatus.CANCELLED : ImportJobStatus.COMPLETED;
+        } catch (Exception e) {
+            logger.error("Import job {} failed", job.id, e);
+            job.errorMessage = e.getMessage();
+            outcome = ImportJobStatus.FAILED;
+        }
+        // Only after the rejection report has been flushed and closed
+        finish(job, outcome);
+    }
+    
+    private void finish(ImportJob job, ImportJobStatus status) {
+        deleteQuietly(job.upload);
+        job.completedAt = LocalDateTime.now();
+        job.status = status;
+        evictFinishedJobs();
+    }
+    
+    /**
+     * Keeps only the most recent finished jobs, removing their rejection reports with them.
+     */
+    private synchronized void evictFinishedJobs() {
+        List<ImportJob> finished = jobs.values().stream()
+                .filter(job -> job.completedAt != null)
+                .sorted(Comparator.comparing((ImportJob job) -> job.completedAt).reversed())
+                .collect(Collectors.toList());
+        
+        for (ImportJob job : finished.subList(Math.min(retainedJobs, finished.size()), finished.size())) {
+            jobs.remove(job.id);
+            deleteQuietly(job.rejections);
+        }
+    }
+    
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete import file {}", file, e);
+        }
+    }
+    
+    private ImportJobDTO toDTO(ImportJob job) {
+        ImportProgress progress = job.progress;
+        ImportJobDTO dto = new ImportJobDTO();
+        dto.setId(job.id);
+        dto.setType(job.type.name());
+        dto.setStatus(job.status.name());
+        dto.setFileName(job.fileName);
+        dto.setProcessed(progress.getProcessed());
+        dto.setImported(progress.getImported());
+        dto.setSkipped(progress.getSkipped());
+        dto.setEmptyFields(progress.getEmptyFields());
+        dto.setSaveErrors(progress.getSaveErrors());
+        dto.setExceptions(progress.getExceptions());
+        dto.setCancelled(progress.getCancelledRecords());
+        dto.setErrorMessage(job.errorMessage);
+        dto.setCreatedAt(job.createdAt);
+        dto.setCompletedAt(job.completedAt);
+        return dto;
+    }
+    
+    private enum ImportJobStatus {
+        QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+    
+    private static class ImportJob {
+        private final String id;
+        private final ImportType type;
+        private final String fileName;
+        private final Path upload;
+        private final Path rejections;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        
+        private final ImportProgress progress = new ImportProgress();
+        private volatile ImportJobStatus status = ImportJobStatus.QUEUED;
+        private volatile String errorMessage;
+        private volatile LocalDateTime completedAt;
+        
+        private ImportJob(String id, ImportType type, String fileName, Path spoolDir) {
+            this.id = id;
+            this.type = type;
+            this.fileName = fileName;
+            this.upload = spoolDir.resolve(id + ".csv");
+            this.rejections = spoolDir.resolve(id + "-rejections.csv");
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.pwc.service;
+
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of a running CSV import, shared between the importing thread and
+ * whoever polls for progress. Optionally records each rejected row to a CSV
+ * rejection report.
+ *
+ * Once the import ends, every processed record is counted as imported, skipped or,
+ * if the import was cancelled before it was written, cancelled.
+ */
+public class ImportProgress {
+    
+    public enum RejectionReason {
+        EMPTY_REQUIRED_FIELD, SAVE_ERROR, EXCEPTION
+    }
+    
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong emptyFields = new AtomicLong();
+    private final AtomicLong saveErrors = new AtomicLong();
+    private final AtomicLong exceptions = new AtomicLong();
+    private final AtomicLong cancelledRecords = new AtomicLong();
+    
+    private volatile CSVPrinter rejections;
+    private volatile boolean cancelled;
+    
+    /**
+     * @param rejections printer receiving one {@code record,reason,detail} row per rejected record
+     */
+    public void setRejections(CSVPrinter rejections) {
+        this.rejections = rejections;
+    }
+    
+    public void recordProcessed() {
+        processed.incrementAndGet();
+    }
+    
+    public void recordImported(long count) {
+        imported.addAndGet(count);
+    }
+    
+    public void reject(long recordNumber, RejectionReason reason, String detail) {
+        skipped.incrementAndGet();
+        switch (reason) {
+            case EMPTY_REQUIRED_FIELD -> emptyFields.incrementAndGet();
+            case SAVE_ERROR -> saveErrors.incrementAndGet();
+            case EXCEPTION -> exceptions.incrementAndGet();
+        }
+        
+        CSVPrinter printer = rejections;
+        if (printer != null) {
+            synchronized (printer) {
+                try {
+                    printer.printRecord(recordNumber, reason, detail);
+                } catch (IOException e) {
+                    throw new RuntimeException("Could not write rejection report: " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Counts records that were processed but discarded unwritten because of a cancel.
+     */
+    public void recordCancelled(long count) {
+        cancelledRecords.addAndGet(count);
+    }
+    
+    public void cancel() {
+        cancelled = true;
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    public long getProcessed() { return processed.get(); }
+    
+    public long getImported() { return imported.get(); }
+    
+    public long getSkipped() { return skipped.get(); }
+    
+    public long getEmptyFields() { return emptyFields.get(); }
+    
+    public long getSaveErrors() { return saveErrors.get(); }
+    
+    public long getExceptions() { return exceptions.get(); }
+    
+    public long getCancelledRecords() { return cancelledRecords.get(); }
+}
@@ -3,21 +3,34 @@ package com.pwc.service;
 import com.pwc.dto.*;
 import com.pwc.model.OrganizationDetail;
 import com.pwc.repository.OrganizationDetailRepository;
+import com.pwc.util.KeysetPaginator;
+import com.pwc.util.KeysetPaginator.SortKey;
+import com.pwc.util.SortRegistry;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
@@ -26,43 +39,71 @@ import org.apache.commons.csv.CSVRecord;
 @Service
 public class OrganizationDetailService {
     
+    private static final Logger logger = LoggerFactory.getLogger(OrganizationDetailService.class);
+    
+    // Each key is backed by a (column, id) index on OrganizationDetail
+    private static final SortRegistry SORTS = SortRegistry.builder("organization details", "id", "o.id")
+            .addId("id")
+            .add("legacyOrganizationName", "legacyOrganizationName", "o.legacyOrganizationName", String.class)
+            .add("organization", "organization", "o.organization", String.class)
+            .add("organizationType", "organizationType", "o.organizationType", String.class)
+            .add("referenceId", "referenceId", "o.referenceId", String.class)
+            .build();
+    
     private final OrganizationDetailRepository organizationDetailRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CsvImportPipeline csvImportPipeline;
+    private final SearchIndex searchIndex;
+    private final KeysetPaginator keysetPaginator;
+    private final PageCountCache pageCountCache;
+    
+    // Rows inserted per transaction (and JDBC batch) during CSV import
+    @Value("${app.import.batch-size:500}")
+    private int importBatchSize;
     
     @PersistenceContext
     private EntityManager entityManager;
     
-    public OrganizationDetailService(OrganizationDetailRepository organizationDetailRepository) {
+    public OrganizationDetailService(OrganizationDetailRepository organizationDetailRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     CsvImportPipeline csvImportPipeline,
+                                     SearchIndex searchIndex,
+                                     KeysetPaginator keysetPaginator,
+                                     PageCountCache pageCountCache) {
         this.organizationDetailRepository = organizationDetailRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.csvImportPipeline = csvImportPipeline;
+        this.searchIndex = searchIndex;
+        this.keysetPaginator = keysetPaginator;
+        this.pageCountCache = pageCountCache;
     }
     
     public PageResponse<OrganizationDetailDTO> getAllOrganizationDetails(int page, int size, String sortBy, String sortDir, String search, String organizationTypeFilter) {
-        Sort sort = sortDir.equalsIgnoreCase("desc") 
-                ? Sort.by(sortBy).descending() 
-                : Sort.by(sortBy).ascending();
-        
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = PageRequest.of(page, size, SORTS.sort(sortBy, sortDir));
         
         // Default organizationTypeFilter to 'all' if null
         if (organizationTypeFilter == null || organizationTypeFilter.trim().isEmpty()) {
             organizationTypeFilter = "all";
         }
         
-        Page<OrganizationDetail> organizationDetailPage;
+        List<OrganizationDetail> organizationDetails;
         if (search != null && !search.trim().isEmpty()) {
-            organizationDetailPage = organizationDetailRepository.searchOrganizationDetailsWithTypeFilter(search.trim(), organizationTypeFilter, pageable);
+            organizationDetails = organizationDetailRepository.searchOrganizationDetailsWithTypeFilter(search.trim(), organizationTypeFilter, pageable);
         } else {
             if ("all".equals(organizationTypeFilter)) {
-                organizationDetailPage = organizationDetailRepository.findAll(pageable);
+                organizationDetails = organizationDetailRepository.findAllBy(pageable);
             } else {
-                organizationDetailPage = organizationDetailRepository.findAllWithTypeFilter(organizationTypeFilter, pageable);
+                organizationDetails = organizationDetailRepository.findAllWithTypeFilter(organizationTypeFilter, pageable);
             }
         }
+        PageCountCache.Total total = countOrganizationDetails(search, organizationTypeFilter);
+        Page<OrganizationDetail> organizationDetailPage = new PageImpl<>(organizationDetails, pageable, total.count());
         
         List<OrganizationDetailDTO> content = organizationDetailPage.getContent().stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
         
-        return new PageResponse<>(
+        PageResponse<OrganizationDetailDTO> response = new PageResponse<>(
                 content,
                 organizationDetailPage.getNumber(),
                 organizationDetailPage.getSize(),
@@ -70,6 +111,65 @@ public class OrganizationDetailService {
                 organizationDetailPage.getTotalPages(),
                 organizationDetailPage.isLast()
         );
+        response.setTotalElementsEstimated(total.estimated());
+        return response;
+    }
+    
+    /**
+     * Cursor (keyset) variant of {@link #getAllOrganizationDetails}: returns the page after
+     * {@code cursor} (the first one when empty) and skips the count unless
+     * {@code includeTotal} is set.
+     */
+    public PageResponse<OrganizationDetailDTO> getOrganizationDetailsByCursor(String cursor, int size, String sortBy,
+                                                                              String sortDir, String search,
+                                                                              String organizationTypeFilter,
+                                                                              boolean includeTotal) {
+        SortKey sortKey = SORTS.keysetKey(sortBy);
+        
+        if (organizationTypeFilter == null || organizationTypeFilter.trim().isEmpty()) {
+            organizationTypeFilter = "all";
+        }
+        
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (search != null && !search.trim().isEmpty()) {
+            conditions.add("(LOWER(o.legacyOrganizationName) LIKE :search OR LOWER(o.organization) LIKE :search "
+                    + "OR LOWER(o.organizationType) LIKE :search OR LOWER(o.referenceId) LIKE :search)");
+            parameters.put("search", "%" + search.trim().toLowerCase() + "%");
+        }
+        if (!"all".equals(organizationTypeFilter)) {
+            conditions.add("LOWER(o.organizationType) = :organizationType");
+            parameters.put("organizationType", organizationTypeFilter.toLowerCase());
+        }
+        
+        KeysetPaginator.Slice<OrganizationDetail> slice = keysetPaginator.fetch(
+                new KeysetPaginator.Query<>(OrganizationDetail.class, "o", "FROM OrganizationDetail o",
+                        conditions.isEmpty() ? null : String.join(" AND ", conditions), parameters, "o.id"),
+                sortKey, !sortDir.equalsIgnoreCase("desc"), cursor, size);
+        PageCountCache.Total total = includeTotal ? countOrganizationDetails(search, organizationTypeFilter) : null;
+        
+        List<OrganizationDetailDTO> content = slice.content().stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        return PageResponse.ofCursor(content, size, total != null ? total.count() : null,
+                total != null && total.estimated(), slice.nextCursor());
+    }
+    
+    private PageCountCache.Total countOrganizationDetails(String search, String organizationTypeFilter) {
+        if (search != null && !search.trim().isEmpty()) {
+            String trimmed = search.trim();
+            return pageCountCache.filtered(PageCountCache.ORGANIZATION_DETAILS,
+                    "type:" + organizationTypeFilter.toLowerCase() + "\u0000search:" + trimmed.toLowerCase(),
+                    () -> organizationDetailRepository.countSearchOrganizationDetailsWithTypeFilter(trimmed,
+                            organizationTypeFilter));
+        }
+        if ("all".equals(organizationTypeFilter)) {
+            return pageCountCache.unfiltered(PageCountCache.ORGANIZATION_DETAILS, "organization_details",
+                    organizationDetailRepository::count);
+        }
+        return pageCountCache.filtered(PageCountCache.ORGANIZATION_DETAILS,
+                "type:" + organizationTypeFilter.toLowerCase(),
+                () -> organizationDetailRepository.countWithTypeFilter(organizationTypeFilter));
     }
     
     public List<String> getDistinctOrganizationTypes() {
@@ -91,6 +191,8 @@ public class OrganizationDetailService {
         organizationDetail.setReferenceId(createDTO.getReferenceId());
         
         OrganizationDetail saved = organizationDetailRepository.save(organizationDetail);
+        searchIndex.indexOrganizationDetail(saved);
+        pageCountCache.invalidate(PageCountCache.ORGANIZATION_DETAILS);
         return convertToDTO(saved);
     }
     
@@ -113,6 +215,9 @@ public class OrganizationDetailService {
         }
         
         OrganizationDetail updated = organizationDetailRepository.save(organizationDetail);
+        searchIndex.indexOrganizationDetail(updated);
+        // The type and names also filter and search the assignments listing
+        pageCountCache.invalidate(PageCountCache.ORGANIZATION_DETAILS, PageCountCache.ASSIGNMENTS);
         return convertToDTO(updated);
     }
     
@@ -122,15 +227,27 @@ public class OrganizationDetailService {
             throw new RuntimeException("Organization detail not found");
         }
         organizationDetailRepository.deleteById(id);
+        searchIndex.removeOrganizationDetail(id);
+        pageCountCache.invalidate(PageCountCache.ORGANIZATION_DETAILS, PageCountCache.ASSIGNMENTS);
     }
     
     public int importOrganizationDetailsFromCsv(MultipartFile file) {
-        int importedCount = 0;
-        @SuppressWarnings("unused")
-        int skippedCount = 0;
-        
+        try (InputStream input = file.getInputStream()) {
+            return importOrganizationDetailsFromCsv(input, new ImportProgress());
+        } catch (IOException e) {
+            throw new RuntimeException("Error importing CSV: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Imports organization details from a CSV stream, reporting counters and rejected
+     * rows to {@code progress}. Stops early when the progress is cancelled.
+     * 
+     * @return number of organization details imported
+     */
+    public int importOrganizationDetailsFromCsv(InputStream input, ImportProgress progress) {
         try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
+                new InputStreamReader(input, StandardCharsets.UTF_8));
              CSVParser csvParser = CSVFormat.DEFAULT
                      .builder()
                      .setHeader()
@@ -165,66 +282,94 @@ public class OrganizationDetailService {
                 }
             }
             
-            // Process each record - all fields are optional
-            for (CSVRecord record : csvParser) {
-                try {
-                    OrganizationDetail organizationDetail = new OrganizationDetail();
-                    
-                    if (legacyOrganizationNameColumn != null && record.isMapped(legacyOrganizationNameColumn)) {
-                        String value = record.get(legacyOrganizationNameColumn).trim();
-                        if (!value.isEmpty() && value.length() <= 100) {
-                            organizationDetail.setLegacyOrganizationName(value);
-                        }
-                    }
-                    
-                    if (organizationColumn != null && record.isMapped(organizationColumn)) {
-                        String value = record.get(organizationColumn).trim();
-                        if (!value.isEmpty() && value.length() <= 100) {
-                            organizationDetail.setOrganization(value);
-                        }
-                    }
-                    
-                    if (organizationTypeColumn != null && record.isMapped(organizationTypeColumn)) {
-                        String value = record.get(organizationTypeColumn).trim();
-                        if (!value.isEmpty() && value.length() <= 100) {
-                            organizationDetail.setOrganizationType(value);
-                        }
-                    }
-                    
-                    if (referenceIdColumn != null && record.isMapped(referenceIdColumn)) {
-                        String value = record.get(referenceIdColumn).trim();
-                        // Clean up Excel error values like "#VALUE!", "#REF!", "#N/A", etc.
-                        // Only set referenceId if it's valid (not empty, not an Excel error, and within length limit)
-                        if (!value.isEmpty() && !value.startsWith("#") && value.length() <= 100) {
-                            organizationDetail.setReferenceId(value);
-                        }
-                        // If value is an Excel error or empty, referenceId will remain null (default)
-                    }
-                    
-                    // Save in separate transaction to avoid rollback affecting other records
-                    if (saveOrganizationDetailInNewTransaction(organizationDetail)) {
-                        importedCount++;
-                    } else {
-                        skippedCount++;
-                    }
-                    
-                } catch (Exception e) {
-                    skippedCount++;
-                    // Continue processing other rows
-                }
-            }
+            OrganizationDetailCsvColumns columns = new OrganizationDetailCsvColumns(legacyOrganizationNameColumn,
+                    organizationColumn, organizationTypeColumn, referenceIdColumn);
             
+            // Records are mapped on the pipeline's workers and saved here in chunks, one transaction per chunk
+            csvImportPipeline.run(csvParser, importBatchSize, progress,
+                    record -> mapOrganizationDetailRecord(record, columns),
+                    (details, recordNumbers) -> saveOrganizationDetailChunk(details, recordNumbers, progress));
+                    
         } catch (Exception e) {
             throw new RuntimeException("Error importing CSV: " + e.getMessage(), e);
         }
         
-        return importedCount;
+        return (int) progress.getImported();
+    }
+    
+    /**
+     * CSV header names of the organization detail columns; null when the file lacks the column.
+     */
+    private record OrganizationDetailCsvColumns(String legacyOrganizationName, String organization,
+                                                String organizationType, String referenceId) {
+    }
+    
+    /**
+     * Maps one CSV record to a new organization detail. All fields are optional; values
+     * that are empty or longer than 100 characters are left null.
+     */
+    private OrganizationDetail mapOrganizationDetailRecord(CSVRecord record, OrganizationDetailCsvColumns columns) {
+        OrganizationDetail organizationDetail = new OrganizationDetail();
+        organizationDetail.setLegacyOrganizationName(optionalValue(record, columns.legacyOrganizationName()));
+        organizationDetail.setOrganization(optionalValue(record, columns.organization()));
+        organizationDetail.setOrganizationType(optionalValue(record, columns.organizationType()));
+        
+        // Clean up Excel error values like "#VALUE!", "#REF!", "#N/A", etc.
+        // If value is an Excel error or empty, referenceId will remain null (default)
+        String referenceId = optionalValue(record, columns.referenceId());
+        if (referenceId != null && !referenceId.startsWith("#")) {
+            organizationDetail.setReferenceId(referenceId);
+        }
+        return organizationDetail;
+    }
+    
+    private String optionalValue(CSVRecord record, String column) {
+        if (column == null || !record.isMapped(column)) {
+            return null;
+        }
+        String value = record.get(column).trim();
+        return !value.isEmpty() && value.length() <= 100 ? value : null;
+    }
+    
+    /**
+     * Saves a chunk of organization details in one transaction so the inserts go out as
+     * JDBC batches. If the chunk fails it is retried row by row, so only the offending
+     * rows are skipped.
+     */
+    private void saveOrganizationDetailChunk(List<OrganizationDetail> chunk, List<Long> recordNumbers,
+                                             ImportProgress progress) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                organizationDetailRepository.saveAll(chunk);
+                organizationDetailRepository.flush();
+                searchIndex.indexOrganizationDetails(chunk);
+                pageCountCache.invalidate(PageCountCache.ORGANIZATION_DETAILS);
+            });
+            progress.recordImported(chunk.size());
+            return;
+        } catch (Exception e) {
+            logger.warn("Batch of {} organization details failed, retrying row by row: {}", chunk.size(), e.getMessage());
+        }
+        
+        for (int i = 0; i < chunk.size(); i++) {
+            OrganizationDetail organizationDetail = chunk.get(i);
+            // Discard the id assigned during the rolled back batch
+            organizationDetail.setId(null);
+            if (saveOrganizationDetailInNewTransaction(organizationDetail)) {
+                progress.recordImported(1);
+            } else {
+                progress.reject(recordNumbers.get(i), ImportProgress.RejectionReason.SAVE_ERROR,
+                        "Failed to save organization detail");
+            }
+        }
     }
     
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public boolean saveOrganizationDetailInNewTransaction(OrganizationDetail organizationDetail) {
         try {
             organizationDetailRepository.save(organizationDetail);
+            searchIndex.indexOrganizationDetail(organizationDetail);
+            pageCountCache.invalidate(PageCountCache.ORGANIZATION_DETAILS);
             return true;
         } catch (Exception e) {
             // Log error but don't throw - return false to indicate failure
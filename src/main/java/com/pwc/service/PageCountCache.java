@@ -0,0 +1,134 @@
+package com.pwc.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pwc.util.TransactionCallbacks;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Total counts for the paged listings, so that paging through a listing does not run
+ * the same COUNT (a second full scan when searching) for every page.
+ *
+ * Counts are cached per listing and filter for a short TTL, and dropped when the
+ * services write the listed entities; the TTL bounds staleness for anything else.
+ * Unfiltered listings can optionally use the row count estimate from the database's
+ * table statistics instead, see {@link #unfiltered}.
+ */
+@Component
+public class PageCountCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PageCountCache.class);
+    
+    public static final String EMPLOYEES = "employees";
+    public static final String ORGANIZATION_DETAILS = "organizationDetails";
+    public static final String ASSIGNMENTS = "assignments";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, Long> counts;
+    
+    // Use table statistics for unfiltered listings at or above estimate-min-rows
+    @Value("${app.pagination.count-cache.estimate-unfiltered:false}")
+    private boolean estimateUnfiltered;
+    
+    // Below this, an exact count is cheap enough and the estimate is not worth its error
+    @Value("${app.pagination.count-cache.estimate-min-rows:100000}")
+    private long estimateMinRows;
+    
+    private volatile String databaseProduct;
+    
+    /**
+     * A total count, and whether it is an estimate rather than exact.
+     */
+    public record Total(long count, boolean estimated) {
+    }
+    
+    public PageCountCache(JdbcTemplate jdbcTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.pagination.count-cache.ttl-seconds:30}") long ttlSeconds,
+                          @Value("${app.pagination.count-cache.max-size:1000}") long maxSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.counts = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, counts, "page.counts");
+    }
+    
+    /**
+     * Returns the cached count of {@code listing} with this filter (any string identifying
+     * the filter and search), running {@code exactCount} on a miss.
+     */
+    public Total filtered(String listing, String filter, LongSupplier exactCount) {
+        return new Total(counts.get(listing + '\u0000' + filter, key -> exactCount.getAsLong()), false);
+    }
+    
+    /**
+     * Returns the count of the unfiltered listing over {@code table}: the table statistics
+     * estimate if enabled and large enough, otherwise the cached exact count.
+     */
+    public Total unfiltered(String listing, String table, LongSupplier exactCount) {
+        if (estimateUnfiltered) {
+            long estimate = estimateRows(table);
+            if (estimate >= estimateMinRows) {
+                return new Total(estimate, true);
+            }
+        }
+        return filtered(listing, "", exactCount);
+    }
+    
+    /**
+     * Drops the cached counts of these listings. Inside a transaction they are dropped
+     * again after commit, so a request that counted in between cannot keep the
+     * pre-commit count.
+     */
+    public void invalidate(String... listings) {
+        List<String> prefixes = Arrays.stream(listings).map(listing -> listing + '\u0000').toList();
+        Runnable invalidation = () -> counts.asMap().keySet()
+                .removeIf(key -> prefixes.stream().anyMatch(key::startsWith));
+        TransactionCallbacks.nowAndAfterCommit(invalidation);
+    }
+    
+    /**
+     * Row count estimate from the table statistics, or -1 when the database keeps none
+     * (or has not analyzed the table yet).
+     */
+    private long estimateRows(String table) {
+        try {
+            String product = databaseProduct();
+            Long estimate = null;
+            if (product.contains("PostgreSQL")) {
+                estimate = jdbcTemplate.queryForObject(
+                        "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)", Long.class, table);
+            } else if (product.contains("H2")) {
+                estimate = jdbcTemplate.queryForObject("SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES "
+                        + "WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = UPPER(?)", Long.class, table);
+            }
+            return estimate != null ? estimate : -1;
+        } catch (DataAccessException e) {
+            logger.debug("No row count estimate for {}: {}", table, e.getMessage());
+            return -1;
+        }
+    }
+    
+    private String databaseProduct() {
+        if (databaseProduct == null) {
+            databaseProduct = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+        }
+        return databaseProduct;
+    }
+}
@@ -0,0 +1,173 @@
+package com.pwc.service;
+
+import com.pwc.exception.UnauthorizedException;
+import com.pwc.model.RefreshToken;
+import com.pwc.repository.RefreshTokenRepository;
+import com.pwc.util.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues, rotates and revokes refresh tokens.
+ *
+ * Tokens are 256-bit random strings; the {@code refresh_tokens} table keeps only their
+ * SHA-256 hash. All live hashes are also indexed in memory, so a refresh is a map lookup
+ * plus a delete and an insert, never a password check. Each token is single use: a
+ * refresh replaces it with a new one. Revocation removes tokens from the index at once.
+ */
+@Service
+public class RefreshTokenService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+    
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int TOKEN_BYTES = 32;
+    
+    public record Rotation(Long userId, String refreshToken) {
+    }
+    
+    private final RefreshTokenRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final long refreshExpiration;
+    private final Map<String, IndexEntry> index = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService cleaner;
+    
+    public RefreshTokenService(RefreshTokenRepository repository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${jwt.refresh-expiration:1209600000}") long refreshExpiration) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.refreshExpiration = refreshExpiration;
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "refresh-token-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PostConstruct
+    public void init() {
+        removeExpired();
+        repository.findAll().forEach(token ->
+                index.put(token.getTokenHash(), new IndexEntry(token.getUserId(), token.getExpiresAt())));
+        logger.info("Loaded {} refresh tokens", index.size());
+        cleaner.scheduleWithFixedDelay(this::removeExpired, 1, 1, TimeUnit.HOURS);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        cleaner.shutdownNow();
+    }
+    
+    /**
+     * Creates a refresh token for the user and returns it. Only its hash is stored.
+     */
+    @Transactional
+    public String issue(Long userId) {
+        String token = generateToken();
+        String tokenHash = hash(token);
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(refreshExpiration));
+        repository.save(new RefreshToken(userId, tokenHash, expiresAt));
+        TransactionCallbacks.afterCommit(() -> index.put(tokenHash, new IndexEntry(userId, expiresAt)));
+        return token;
+    }
+    
+    /**
+     * Consumes a refresh token and issues its replacement.
+     *
+     * @throws UnauthorizedException if the token is unknown, already used, revoked or expired
+     */
+    @Transactional
+    public Rotation rotate(String token) {
+        String tokenHash = hash(token);
+        // Removing first makes concurrent refreshes with the same token fail but one
+        IndexEntry entry = token != null ? index.remove(tokenHash) : null;
+        if (entry == null || entry.expiresAt().isBefore(LocalDateTime.now())) {
+            throw new UnauthorizedException("Invalid or expired refresh token");
+        }
+        // Zero rows: revoked, or used through another instance, since the index was loaded
+        if (repository.deleteByTokenHash(tokenHash) == 0) {
+            throw new UnauthorizedException("Invalid or expired refresh token");
+        }
+        // The token stays valid in the database if the rotation rolls back
+        TransactionCallbacks.afterRollback(() -> index.putIfAbsent(tokenHash, entry));
+        return new Rotation(entry.userId(), issue(entry.userId()));
+    }
+    
+    /**
+     * Revokes a single refresh token, e.g. on logout. Unknown tokens are ignored.
+     */
+    @Transactional
+    public void revoke(String token) {
+        if (token == null) {
+            return;
+        }
+        String tokenHash = hash(token);
+        index.remove(tokenHash);
+        repository.deleteByTokenHash(tokenHash);
+    }
+    
+    /**
+     * Revokes all refresh tokens of the user.
+     */
+    @Transactional
+    public void revokeAll(Long userId) {
+        index.values().removeIf(entry -> entry.userId().equals(userId));
+        repository.deleteByUserId(userId);
+        // Tokens issued by a concurrent refresh committing after the removal above
+        TransactionCallbacks.afterCommit(() -> index.values().removeIf(entry -> entry.userId().equals(userId)));
+    }
+    
+    private void removeExpired() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            index.values().removeIf(entry -> entry.expiresAt().isBefore(now));
+            Integer removed = transactionTemplate.execute(status -> repository.deleteExpired(now));
+            if (removed != null && removed > 0) {
+                logger.info("Removed {} expired refresh tokens", removed);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not remove expired refresh tokens", e);
+        }
+    }
+    
+    private static String generateToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+    
+    private static String hash(String token) {
+        if (token == null) {
+            return null;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private record IndexEntry(Long userId, LocalDateTime expiresAt) {
+    }
+}
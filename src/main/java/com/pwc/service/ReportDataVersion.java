@@ -0,0 +1,31 @@
+package com.pwc.service;
+
+import com.pwc.util.TransactionCallbacks;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic counter of changes to the data behind the Assign Roles report.
+ * 
+ * Generated report artifacts are tagged with the version that was current when
+ * generation started, and are only reused while the version is unchanged.
+ */
+@Component
+public class ReportDataVersion {
+    
+    private final AtomicLong version = new AtomicLong();
+    
+    public long current() {
+        return version.get();
+    }
+    
+    /**
+     * Marks the report data as changed. Inside a transaction the bump is deferred
+     * until commit, so a report started before the commit can never be tagged
+     * with the new version while still reading the old data.
+     */
+    public void bump() {
+        TransactionCallbacks.afterCommit(version::incrementAndGet);
+    }
+}
@@ -0,0 +1,189 @@
+package com.pwc.service;
+
+import com.pwc.dto.ReportJobDTO;
+import com.pwc.exception.TooManyRequestsException;
+import com.pwc.repository.AssignmentRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs Assign Roles report generation in the background.
+ *
+ * Jobs are queued on a bounded executor and produce the cached report file kept by
+ * {@link ExcelReportService}. A finished job is reused by later submissions for as
+ * long as the report data has not changed (see {@link ReportDataVersion}).
+ */
+@Service
+public class ReportJobService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+    
+    private final ExcelReportService excelReportService;
+    private final AssignmentRepository assignmentRepository;
+    private final ReportDataVersion reportDataVersion;
+    private final ThreadPoolExecutor executor;
+    
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    
+    public ReportJobService(ExcelReportService excelReportService,
+                            AssignmentRepository assignmentRepository,
+                            ReportDataVersion reportDataVersion,
+                            @Value("${app.report.jobs.threads:2}") int threads,
+                            @Value("${app.report.jobs.queue-capacity:10}") int queueCapacity) {
+        this.excelReportService = excelReportService;
+        this.assignmentRepository = assignmentRepository;
+        this.reportDataVersion = reportDataVersion;
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    /**
+     * Enqueues a report job, or returns an existing job for the current data version
+     * if one is already finished or in progress.
+     */
+    public synchronized ReportJobDTO submit() {
+        long version = reportDataVersion.current();
+        
+        for (ReportJob existing : jobs.values()) {
+            if (existing.dataVersion == version && existing.status != ReportJobStatus.FAILED) {
+                return toDTO(existing);
+            }
+        }
+        
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), version);
+        
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new TooManyRequestsException("Too many report jobs queued. Please try again later.");
+        }
+        
+        return toDTO(job);
+    }
+    
+    public ReportJobDTO getJob(String id) {
+        return toDTO(findJob(id));
+    }
+    
+    /**
+     * Returns the report file of a completed job.
+     */
+    public Path getReportFile(String id) {
+        ReportJob job = findJob(id);
+        if (job.status != ReportJobStatus.COMPLETED) {
+            throw new RuntimeException("Report is not ready yet");
+        }
+        if (!Files.exists(job.file)) {
+            // Replaced by a newer report after the data changed
+            throw new RuntimeException("Report has expired. Please generate a new one.");
+        }
+        return job.file;
+    }
+    
+    public String getFileName(String id) {
+        return findJob(id).fileName;
+    }
+    
+    private ReportJob findJob(String id) {
+        ReportJob job = jobs.get(id);
+        if (job == null) {
+            throw new RuntimeException("Report job not found");
+        }
+        return job;
+    }
+    
+    private void run(ReportJob job) {
+        job.status = ReportJobStatus.RUNNING;
+        job.totalRows = assignmentRepository.count();
+        
+        try {
+            ExcelReportService.CachedReport report =
+                    excelReportService.getFullReport(rowsWritten -> job.rowsWritten = rowsWritten);
+            
+            job.file = report.file();
+            job.fileName = report.fileName();
+            job.completedAt = LocalDateTime.now();
+            job.status = ReportJobStatus.COMPLETED;
+            evictOlderJobs(job);
+        } catch (Exception e) {
+            logger.error("Report job {} failed", job.id, e);
+            job.errorMessage = e.getMessage();
+            job.completedAt = LocalDateTime.now();
+            job.status = ReportJobStatus.FAILED;
+        }
+    }
+    
+    /**
+     * Drops finished jobs that the given completed job supersedes.
+     */
+    private synchronized void evictOlderJobs(ReportJob latest) {
+        jobs.values().removeIf(job -> job != latest
+                && (job.status == ReportJobStatus.COMPLETED || job.status == ReportJobStatus.FAILED)
+                && job.dataVersion <= latest.dataVersion);
+    }
+    
+    private ReportJobDTO toDTO(ReportJob job) {
+        ReportJobDTO dto = new ReportJobDTO();
+        dto.setId(job.id);
+        dto.setStatus(job.status.name());
+        dto.setRowsWritten(job.rowsWritten);
+        dto.setTotalRows(job.totalRows);
+        dto.setFileName(job.fileName);
+        dto.setErrorMessage(job.errorMessage);
+        dto.setCreatedAt(job.createdAt);
+        dto.setCompletedAt(job.completedAt);
+        return dto;
+    }
+    
+    private enum ReportJobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+    
+    private static class ReportJob {
+        private final String id;
+        private final long dataVersion;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        
+        private volatile ReportJobStatus status = ReportJobStatus.QUEUED;
+        private volatile long rowsWritten;
+        private volatile long totalRows;
+        private volatile Path file;
+        private volatile String fileName;
+        private volatile String errorMessage;
+        private volatile LocalDateTime completedAt;
+        
+        private ReportJob(String id, long dataVersion) {
+            this.id = id;
+            this.dataVersion = dataVersion;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.pwc.service;
+
+import com.pwc.model.Employee;
+import com.pwc.model.OrganizationDetail;
+import com.pwc.model.User;
+import com.pwc.repository.EmployeeRepository;
+import com.pwc.repository.OrganizationDetailRepository;
+import com.pwc.repository.UserRepository;
+import com.pwc.util.NgramIndex;
+import com.pwc.util.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Trigram indexes over the searchable text of employees ({@code employeeId}, names,
+ * {@code email}), organization details (legacy name, organization, type, reference id)
+ * and users (names, {@code email}, {@code company}).
+ *
+ * Built at startup in pages of {@value #LOAD_PAGE_SIZE} rows and kept current by the
+ * services that write these entities; changes made inside a transaction are applied
+ * once it commits. Backs the Employee Details search and {@code /api/search/suggest}.
+ */
+@Component
+public class SearchIndex {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndex.class);
+    
+    private static final int LOAD_PAGE_SIZE = 10_000;
+    
+    private final EmployeeRepository employeeRepository;
+    private final OrganizationDetailRepository organizationDetailRepository;
+    private final UserRepository userRepository;
+    
+    private final NgramIndex employees = new NgramIndex();
+    private final NgramIndex organizationDetails = new NgramIndex();
+    private final NgramIndex users = new NgramIndex();
+    
+    // Lets suggestions be filtered by organization type access without a query
+    private final Map<Long, String> organizationTypeByDetailId = new ConcurrentHashMap<>();
+    
+    public SearchIndex(EmployeeRepository employeeRepository,
+                       OrganizationDetailRepository organizationDetailRepository,
+                       UserRepository userRepository) {
+        this.employeeRepository = employeeRepository;
+        this.organizationDetailRepository = organizationDetailRepository;
+        this.userRepository = userRepository;
+    }
+    
+    @PostConstruct
+    public void load() {
+        long start = System.nanoTime();
+        employees.clear();
+        organizationDetails.clear();
+        organizationTypeByDetailId.clear();
+        users.clear();
+        
+        loadPaged(employeeRepository::findSearchFieldsAfter, row -> employees.put((Long) row[0],
+                (String) row[1], (String) row[2], (String) row[3], (String) row[4]));
+        loadPaged(organizationDetailRepository::findSearchFieldsAfter, row -> putOrganizationDetail((Long) row[0],
+                (String) row[1], (String) row[2], (String) row[3], (String) row[4]));
+        loadPaged(userRepository::findSearchFieldsAfter, row -> users.put((Long) row[0],
+                (String) row[1], (String) row[2], (String) row[3], (String) row[4]));
+        
+        logger.info("Indexed {} employees, {} organization details and {} users for search in {} ms",
+                employees.size(), organizationDetails.size(), users.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    /**
+     * Returns the ids of the employees whose employeeId, first name, last name or email
+     * contains the query, ignoring case, in ascending order.
+     */
+    public long[] searchEmployees(String query) {
+        return employees.search(query);
+    }
+    
+    /**
+     * Best-ranked employee ids for a typeahead, see {@link NgramIndex#suggest}.
+     */
+    public long[] suggestEmployees(String query, int limit, int maxCandidates) {
+        return employees.suggest(query, limit, maxCandidates, id -> true);
+    }
+    
+    /**
+     * Best-ranked organization detail ids among those whose organization type is in
+     * {@code organizationTypes}, or among all of them when it is null.
+     */
+    public long[] suggestOrganizationDetails(String query, int limit, int maxCandidates, Set<String> organizationTypes) {
+        return organizationDetails.suggest(query, limit, maxCandidates, id -> organizationTypes == null
+                || organizationTypes.contains(organizationTypeByDetailId.get(id)));
+    }
+    
+    public long[] suggestUsers(String query, int limit, int maxCandidates) {
+        return users.suggest(query, limit, maxCandidates, id -> true);
+    }
+    
+    /**
+     * (Re-)indexes the employees once the current transaction commits.
+     */
+    public void indexEmployees(Collection<Employee> changed) {
+        // Copied now: the entities may change before the commit
+        List<Runnable> puts = new ArrayList<>(changed.size());
+        for (Employee employee : changed) {
+            Long id = employee.getId();
+            String employeeId = employee.getEmployeeId();
+            String firstName = employee.getFirstName();
+            String lastName = employee.getLastName();
+            String email = employee.getEmail();
+            puts.add(() -> employees.put(id, employeeId, firstName, lastName, email));
+        }
+        TransactionCallbacks.afterCommit(() -> puts.forEach(Runnable::run));
+    }
+    
+    public void indexEmployee(Employee employee) {
+        indexEmployees(List.of(employee));
+    }
+    
+    public void removeEmployee(Long id) {
+        TransactionCallbacks.afterCommit(() -> employees.remove(id));
+    }
+    
+    /**
+     * (Re-)indexes the organization details once the current transaction commits.
+     */
+    public void indexOrganizationDetails(Collection<OrganizationDetail> changed) {
+        List<Runnable> puts = new ArrayList<>(changed.size());
+        for (OrganizationDetail detail : changed) {
+            Long id = detail.getId();
+            String legacyName = detail.getLegacyOrganizationName();
+            String organization = detail.getOrganization();
+            String organizationType = detail.getOrganizationType();
+            String referenceId = detail.getReferenceId();
+            puts.add(() -> putOrganizationDetail(id, legacyName, organization, organizationType, referenceId));
+        }
+        TransactionCallbacks.afterCommit(() -> puts.forEach(Runnable::run));
+    }
+    
+    public void indexOrganizationDetail(OrganizationDetail organizationDetail) {
+        indexOrganizationDetails(List.of(organizationDetail));
+    }
+    
+    public void removeOrganizationDetail(Long id) {
+        TransactionCallbacks.afterCommit(() -> {
+            organizationDetails.remove(id);
+            organizationTypeByDetailId.remove(id);
+        });
+    }
+    
+    /**
+     * (Re-)indexes the user once the current transaction commits.
+     */
+    public void indexUser(User user) {
+        Long id = user.getId();
+        String firstName = user.getFirstName();
+        String lastName = user.getLastName();
+        String email = user.getEmail();
+        String company = user.getCompany();
+        TransactionCallbacks.afterCommit(() -> users.put(id, firstName, lastName, email, company));
+    }
+    
+    public void removeUser(Long id) {
+        TransactionCallbacks.afterCommit(() -> users.remove(id));
+    }
+    
+    private void putOrganizationDetail(Long id, String legacyName, String organization, String organizationType,
+                                       String referenceId) {
+        organizationDetails.put(id, legacyName, organization, organizationType, referenceId);
+        if (organizationType != null) {
+            organizationTypeByDetailId.put(id, organizationType);
+        } else {
+            organizationTypeByDetailId.remove(id);
+        }
+    }
+    
+    /**
+     * Reads (id, ...) tuples in id order, one page at a time, so the whole table is
+     * never held in memory.
+     */
+    private void loadPaged(BiFunction<Long, Pageable, List<Object[]>> pageAfter, Consumer<Object[]> consumer) {
+        long afterId = 0;
+        List<Object[]> page;
+        do {
+            page = pageAfter.apply(afterId, PageRequest.of(0, LOAD_PAGE_SIZE));
+            for (Object[] row : page) {
+                consumer.accept(row);
+                afterId = (Long) row[0];
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+    }
+}
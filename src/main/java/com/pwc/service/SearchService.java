@@ -0,0 +1,179 @@
+package com.pwc.service;
+
+import com.pwc.dto.SearchSuggestResponse;
+import com.pwc.dto.SearchSuggestionDTO;
+import com.pwc.model.Employee;
+import com.pwc.model.OrganizationDetail;
+import com.pwc.model.OrganizationType;
+import com.pwc.model.Role;
+import com.pwc.model.User;
+import com.pwc.repository.EmployeeRepository;
+import com.pwc.repository.OrganizationDetailRepository;
+import com.pwc.repository.OrganizationTypeRepository;
+import com.pwc.repository.UserRepository;
+import com.pwc.security.AuthenticatedUser;
+import com.pwc.security.OrganizationAccessMatrix;
+import com.pwc.util.SecurityUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Typeahead suggestions for the pickers: the best hits per entity type, ranked by
+ * {@link SearchIndex}, then loaded by primary key.
+ *
+ * Employees are suggested to every user, as the assignment dialog looks them up;
+ * organization details only of the organization types the user can access; users
+ * only to admins.
+ */
+@Service
+public class SearchService {
+    
+    public static final String EMPLOYEES = "employees";
+    public static final String ORGANIZATION_DETAILS = "organizationDetails";
+    public static final String USERS = "users";
+    
+    private static final Set<String> TYPES = Set.of(EMPLOYEES, ORGANIZATION_DETAILS, USERS);
+    private static final int MAX_LIMIT = 20;
+    
+    private final SearchIndex searchIndex;
+    private final EmployeeRepository employeeRepository;
+    private final OrganizationDetailRepository organizationDetailRepository;
+    private final OrganizationTypeRepository organizationTypeRepository;
+    private final UserRepository userRepository;
+    private final OrganizationAccessMatrix organizationAccessMatrix;
+    private final SecurityUtil securityUtil;
+    private final Timer suggestTimer;
+    
+    // Matches ranked per type; broader queries rank the first ones in id order
+    @Value("${app.search.suggest.max-candidates:5000}")
+    private int maxCandidates;
+    
+    public SearchService(SearchIndex searchIndex,
+                         EmployeeRepository employeeRepository,
+                         OrganizationDetailRepository organizationDetailRepository,
+                         OrganizationTypeRepository organizationTypeRepository,
+                         UserRepository userRepository,
+                         OrganizationAccessMatrix organizationAccessMatrix,
+                         SecurityUtil securityUtil,
+                         MeterRegistry meterRegistry) {
+        this.searchIndex = searchIndex;
+        this.employeeRepository = employeeRepository;
+        this.organizationDetailRepository = organizationDetailRepository;
+        this.organizationTypeRepository = organizationTypeRepository;
+        this.userRepository = userRepository;
+        this.organizationAccessMatrix = organizationAccessMatrix;
+        this.securityUtil = securityUtil;
+        this.suggestTimer = Timer.builder("search.suggest")
+                .description("Time to answer a typeahead request")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Returns up to {@code limit} suggestions for each requested type ({@link #EMPLOYEES},
+     * {@link #ORGANIZATION_DETAILS}, {@link #USERS}; all when empty).
+     */
+    public SearchSuggestResponse suggest(String query, Set<String> types, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new RuntimeException("Search query is required");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new RuntimeException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        Set<String> requested = types == null || types.isEmpty() ? TYPES : types;
+        if (!TYPES.containsAll(requested)) {
+            throw new RuntimeException("Unknown type; expected any of " + TYPES);
+        }
+        
+        return suggestTimer.record(() -> {
+            String trimmed = query.trim();
+            AuthenticatedUser currentUser = securityUtil.getCurrentPrincipal();
+            boolean admin = currentUser.getRole() == Role.ADMIN;
+            SearchSuggestResponse response = new SearchSuggestResponse();
+            
+            if (requested.contains(EMPLOYEES)) {
+                long[] ids = searchIndex.suggestEmployees(trimmed, limit, maxCandidates);
+                response.setEmployees(load(ids, employeeRepository, Employee::getId, this::toSuggestion));
+            }
+            if (requested.contains(ORGANIZATION_DETAILS)) {
+                Set<String> organizationTypes = admin ? null : accessibleOrganizationTypes(currentUser);
+                long[] ids = searchIndex.suggestOrganizationDetails(trimmed, limit, maxCandidates, organizationTypes);
+                response.setOrganizationDetails(load(ids, organizationDetailRepository, OrganizationDetail::getId,
+                        this::toSuggestion));
+            }
+            if (requested.contains(USERS) && admin) {
+                long[] ids = searchIndex.suggestUsers(trimmed, limit, maxCandidates);
+                response.setUsers(load(ids, userRepository, User::getId, this::toSuggestion));
+            }
+            return response;
+        });
+    }
+    
+    private Set<String> accessibleOrganizationTypes(AuthenticatedUser user) {
+        List<Long> typeIds = organizationAccessMatrix.grantedOrganizationTypeIds(user.getId());
+        if (typeIds.isEmpty()) {
+            return Set.of();
+        }
+        return organizationTypeRepository.findAllById(typeIds).stream()
+                .map(OrganizationType::getName)
+                .collect(Collectors.toSet());
+    }
+    
+    /**
+     * Loads the entities in one query and returns them in the ranked order of the ids.
+     * Ids deleted since they were ranked are skipped.
+     */
+    private <T> List<SearchSuggestionDTO> load(long[] ids, JpaRepository<T, Long> repository,
+                                               Function<T, Long> idOf, Function<T, SearchSuggestionDTO> toSuggestion) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        List<Long> rankedIds = Arrays.stream(ids).boxed().toList();
+        Map<Long, T> byId = repository.findAllById(rankedIds).stream()
+                .collect(Collectors.toMap(idOf, Function.identity()));
+        return rankedIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(toSuggestion)
+                .toList();
+    }
+    
+    private SearchSuggestionDTO toSuggestion(Employee employee) {
+        String name = join(" ", employee.getFirstName(), employee.getLastName());
+        return new SearchSuggestionDTO(employee.getId(),
+                name.isEmpty() ? employee.getEmployeeId() : name,
+                join(" · ", employee.getEmployeeId(), employee.getEmail(), employee.getPositionTitle()));
+    }
+    
+    private SearchSuggestionDTO toSuggestion(OrganizationDetail detail) {
+        String label = detail.getOrganization() != null ? detail.getOrganization() : detail.getLegacyOrganizationName();
+        return new SearchSuggestionDTO(detail.getId(),
+                label != null ? label : detail.getReferenceId(),
+                join(" · ", detail.getOrganizationType(), detail.getReferenceId()));
+    }
+    
+    private SearchSuggestionDTO toSuggestion(User user) {
+        String name = join(" ", user.getFirstName(), user.getLastName());
+        return new SearchSuggestionDTO(user.getId(),
+                name.isEmpty() ? user.getEmail() : name,
+                join(" · ", user.getEmail(), user.getCompany()));
+    }
+    
+    private static String join(String separator, String... parts) {
+        return Stream.of(parts)
+                .filter(part -> part != null && !part.isBlank())
+                .collect(Collectors.joining(separator));
+    }
+}
@@ -1,30 +1,42 @@
 package com.pwc.service;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.pwc.dto.BulkOrganizationAccessRequest;
 import com.pwc.dto.LoginResponse;
 import com.pwc.dto.PageResponse;
 import com.pwc.dto.UserCreateDTO;
 import com.pwc.dto.UserDTO;
 import com.pwc.dto.UserUpdateDTO;
-import com.pwc.model.OrganizationType;
+import com.pwc.exception.UnauthorizedException;
 import com.pwc.model.Role;
 import com.pwc.model.User;
-import com.pwc.model.UserOrganizationAccess;
-import com.pwc.repository.OrganizationTypeRepository;
 import com.pwc.repository.UserOrganizationAccessRepository;
 import com.pwc.repository.UserRepository;
+import com.pwc.security.AuthenticatedUserCache;
+import com.pwc.security.OrganizationAccessMatrix;
+import com.pwc.security.PasswordVerifier;
+import com.pwc.util.SortRegistry;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -32,44 +44,124 @@ import jakarta.persistence.PersistenceContext;
 @Service
 public class UserService {
     
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+    
+    // Each key is backed by a (column, id) index on User
+    private static final SortRegistry SORTS = SortRegistry.builder("users", "id", "u.id")
+            .addId("id")
+            .add("firstName", "firstName")
+            .add("lastName", "lastName")
+            .add("company", "company")
+            .add("email", "email")
+            .add("role", "role")
+            .build();
+    
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final UserOrganizationAccessRepository userOrgAccessRepository;
-    private final OrganizationTypeRepository organizationTypeRepository;
+    private final AuthenticatedUserCache authenticatedUserCache;
+    private final OrganizationAccessMatrix organizationAccessMatrix;
+    private final PasswordVerifier passwordVerifier;
+    private final RefreshTokenService refreshTokenService;
+    private final SearchIndex searchIndex;
+    private final Executor loginExecutor;
     
     @PersistenceContext
     private EntityManager entityManager;
     
     public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
                        UserOrganizationAccessRepository userOrgAccessRepository,
-                       OrganizationTypeRepository organizationTypeRepository) {
+                       AuthenticatedUserCache authenticatedUserCache,
+                       OrganizationAccessMatrix organizationAccessMatrix,
+                       PasswordVerifier passwordVerifier,
+                       RefreshTokenService refreshTokenService,
+                       SearchIndex searchIndex,
+                       @Qualifier("applicationTaskExecutor") Executor loginExecutor) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.userOrgAccessRepository = userOrgAccessRepository;
-        this.organizationTypeRepository = organizationTypeRepository;
+        this.authenticatedUserCache = authenticatedUserCache;
+        this.organizationAccessMatrix = organizationAccessMatrix;
+        this.passwordVerifier = passwordVerifier;
+        this.refreshTokenService = refreshTokenService;
+        this.searchIndex = searchIndex;
+        this.loginExecutor = loginExecutor;
     }
     
-    public LoginResponse authenticate(String email, String password) {
+    /**
+     * Verifies the credentials. The password hash is checked on the bounded
+     * {@link PasswordVerifier} pool; the rest of the login (hash upgrade, refresh token)
+     * talks to the database and runs on the application task executor, so the returned
+     * future completes there.
+     *
+     * @throws com.pwc.exception.TooManyRequestsException if the verification pool is saturated
+     */
+    public CompletableFuture<LoginResponse> authenticate(String email, String password) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Invalid email or password"));
         
         // Si el password es NULL, permitir login con cualquier password (solo para forzar cambio)
-        boolean mustChangePassword = false;
         if (user.getPassword() == null || user.getPassword().isEmpty()) {
-            mustChangePassword = true;
             // No validamos el password si es NULL, pero aún requerimos que se envíe algo
             if (password == null || password.isEmpty()) {
                 throw new RuntimeException("Password required. Please set your password.");
             }
-        } else {
-            // Validar password normal
-            if (!passwordEncoder.matches(password, user.getPassword())) {
-                throw new RuntimeException("Invalid email or password");
-            }
+            // Only the short-lived access token: no session may outlive the forced password change
+            return CompletableFuture.completedFuture(buildLoginResponse(user, true, null));
         }
         
+        // Validar password normal
+        return passwordVerifier.check(password, user.getPassword())
+                .thenApplyAsync(check -> {
+                    if (!check.matches()) {
+                        throw new RuntimeException("Invalid email or password");
+                    }
+                    if (check.upgradedHash() != null) {
+                        upgradePasswordHash(user, check.upgradedHash());
+                    }
+                    return buildLoginResponse(user, false, refreshTokenService.issue(user.getId()));
+                }, loginExecutor);
+    }
+    
+    /**
+     * Stores the re-encoded hash. A failure only postpones the upgrade to the next login.
+     */
+    private void upgradePasswordHash(User user, String newHash) {
+        try {
+            if (userRepository.updatePasswordHash(user.getId(), user.getPassword(), newHash) > 0) {
+                logger.info("Upgraded password hash for user {}", user.getId());
+            }
+        } catch (Exception e) {
+            logger.warn("Could not upgrade password hash for user {}", user.getId(), e);
+        }
+    }
+    
+    /**
+     * Exchanges a refresh token for a new one and the user's current login data,
+     * without checking the password.
+     *
+     * @throws com.pwc.exception.UnauthorizedException if the refresh token is not valid
+     */
+    public LoginResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        User user = userRepository.findById(rotation.userId())
+                .orElseThrow(() -> new UnauthorizedException("User not found"));
+        if (user.getPassword() == null || user.getPassword().isEmpty()) {
+            // Password was reset since the token was issued; the user has to log in again
+            refreshTokenService.revokeAll(user.getId());
+            throw new UnauthorizedException("Password change required");
+        }
+        return buildLoginResponse(user, false, rotation.refreshToken());
+    }
+    
+    public void logout(String refreshToken) {
+        refreshTokenService.revoke(refreshToken);
+    }
+    
+    private LoginResponse buildLoginResponse(User user, boolean mustChangePassword, String refreshToken) {
         LoginResponse response = new LoginResponse();
         response.setToken("token_placeholder"); // Will be set by controller
+        response.setRefreshToken(refreshToken);
         response.setEmail(user.getEmail());
         response.setRole(user.getRole());
         response.setFirstName(user.getFirstName());
@@ -77,12 +169,7 @@ public class UserService {
         response.setMustChangePassword(mustChangePassword);
         
         // Build dynamic organization access map
-        Map<Long, Boolean> orgAccess = new HashMap<>();
-        List<UserOrganizationAccess> accessList = userOrgAccessRepository.findByUserId(user.getId());
-        for (UserOrganizationAccess access : accessList) {
-            orgAccess.put(access.getOrganizationType().getId(), access.getHasAccess());
-        }
-        response.setOrganizationAccess(orgAccess);
+        response.setOrganizationAccess(organizationAccessMatrix.accessMap(user.getId()));
         
         return response;
     }
@@ -101,7 +188,11 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         user.setPassword(passwordEncoder.encode(newPassword));
+        // Ends every session opened before the change, including the one of a reset password
+        user.setTokensValidAfter(LocalDateTime.now());
         userRepository.save(user);
+        refreshTokenService.revokeAll(user.getId());
+        authenticatedUserCache.evict(user.getEmail());
     }
     
     @Transactional
@@ -109,21 +200,21 @@ public class UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        // Use native query to set password to NULL, bypassing Hibernate validation
-        entityManager.createNativeQuery("UPDATE users SET password = NULL WHERE id = :id")
+        // Use native query to set password to NULL, bypassing Hibernate validation.
+        // Also ends every session of the user: issued access tokens stop being accepted
+        entityManager.createNativeQuery("UPDATE users SET password = NULL, tokens_valid_after = :now WHERE id = :id")
+                .setParameter("now", LocalDateTime.now())
                 .setParameter("id", userId)
                 .executeUpdate();
+        refreshTokenService.revokeAll(userId);
         
         // Refresh the entity to reflect the change
         entityManager.refresh(user);
+        authenticatedUserCache.evict(user.getEmail());
     }
     
     public PageResponse<UserDTO> getAllUsers(int page, int size, String sortBy, String sortDir, String search, String accessFilter) {
-        Sort sort = sortDir.equalsIgnoreCase("desc") 
-                ? Sort.by(sortBy).descending() 
-                : Sort.by(sortBy).ascending();
-        
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = PageRequest.of(page, size, SORTS.sort(sortBy, sortDir));
         
         // Default accessFilter to 'all' if null
         if (accessFilter == null || accessFilter.trim().isEmpty()) {
@@ -205,17 +296,19 @@ public class UserService {
         user.setRole(userCreateDTO.getRole() != null ? userCreateDTO.getRole() : Role.USER);
         
         User savedUser = userRepository.save(user);
+        searchIndex.indexUser(savedUser);
         
         // Save organization access
         saveOrganizationAccess(savedUser, userCreateDTO.getOrganizationAccess());
         
-        return convertToDTO(savedUser);
+        return convertToDTO(savedUser, loadOrganizationAccess(savedUser.getId()));
     }
     
     @Transactional
     public UserDTO updateUser(Long id, UserUpdateDTO userUpdateDTO) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        authenticatedUserCache.evict(user.getEmail());
         
         // Check if email is being changed and if it already exists
         if (userUpdateDTO.getEmail() != null && !userUpdateDTO.getEmail().equals(user.getEmail())) {
@@ -244,22 +337,26 @@ public class UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        searchIndex.indexUser(updatedUser);
         
         // Update organization access if provided
         if (userUpdateDTO.getOrganizationAccess() != null && !userUpdateDTO.getOrganizationAccess().isEmpty()) {
             saveOrganizationAccess(updatedUser, userUpdateDTO.getOrganizationAccess());
         }
         
-        return convertToDTO(updatedUser);
+        return convertToDTO(updatedUser, loadOrganizationAccess(updatedUser.getId()));
     }
     
     @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new RuntimeException("User not found");
-        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        authenticatedUserCache.evict(user.getEmail());
         // Organization access will be deleted automatically due to cascade
         userRepository.deleteById(id);
+        refreshTokenService.revokeAll(id);
+        organizationAccessMatrix.removeUser(id);
+        searchIndex.removeUser(id);
     }
     
     public Map<String, Long> getUserStatistics() {
@@ -275,38 +372,100 @@ public class UserService {
         return stats;
     }
     
+    /**
+     * Grants and revokes organization types for a set of users in one transaction, with
+     * set-based statements whose count does not depend on the number of users or types.
+     * Unknown user and organization type IDs are ignored.
+     *
+     * @return number of access rows inserted or updated
+     */
+    @Transactional
+    public int updateOrganizationAccess(BulkOrganizationAccessRequest request) {
+        Set<Long> grant = request.getGrant() != null ? request.getGrant() : Set.of();
+        Set<Long> revoke = request.getRevoke() != null ? request.getRevoke() : Set.of();
+        if (grant.isEmpty() && revoke.isEmpty()) {
+            throw new RuntimeException("Nothing to grant or revoke");
+        }
+        if (!Collections.disjoint(grant, revoke)) {
+            throw new RuntimeException("An organization type cannot be granted and revoked at the same time");
+        }
+        
+        Set<Long> userIds = request.getUserIds();
+        int rows = upsertOrganizationAccess(userIds, grant, true)
+                + upsertOrganizationAccess(userIds, revoke, false);
+        
+        organizationAccessMatrix.refreshUsers(userIds);
+        return rows;
+    }
+    
     private void saveOrganizationAccess(User user, Map<Long, Boolean> accessMap) {
         if (accessMap == null || accessMap.isEmpty()) {
             return;
         }
         
+        Set<Long> granted = new HashSet<>();
+        Set<Long> denied = new HashSet<>();
         for (Map.Entry<Long, Boolean> entry : accessMap.entrySet()) {
-            Long orgTypeId = entry.getKey();
-            Boolean hasAccess = entry.getValue();
-            
-            OrganizationType orgType = organizationTypeRepository.findById(orgTypeId).orElse(null);
-            if (orgType == null) {
-                continue;
-            }
-            
-            // Check if access record exists
-            UserOrganizationAccess existingAccess = userOrgAccessRepository
-                    .findByUserIdAndOrganizationTypeId(user.getId(), orgTypeId)
-                    .orElse(null);
-            
-            if (existingAccess != null) {
-                // Update existing
-                existingAccess.setHasAccess(hasAccess != null ? hasAccess : false);
-                userOrgAccessRepository.save(existingAccess);
-            } else {
-                // Create new
-                UserOrganizationAccess newAccess = new UserOrganizationAccess(user, orgType, hasAccess != null ? hasAccess : false);
-                userOrgAccessRepository.save(newAccess);
-            }
+            (Boolean.TRUE.equals(entry.getValue()) ? granted : denied).add(entry.getKey());
+        }
+        
+        Set<Long> userIds = Set.of(user.getId());
+        upsertOrganizationAccess(userIds, granted, true);
+        upsertOrganizationAccess(userIds, denied, false);
+        organizationAccessMatrix.refreshUser(user.getId());
+    }
+    
+    /**
+     * Sets has_access for every (user, organization type) pair, updating existing rows and
+     * inserting the missing ones. Plain UPDATE plus INSERT ... SELECT, so it runs unchanged
+     * on H2 and PostgreSQL; pairs whose user or type does not exist produce no row.
+     */
+    private int upsertOrganizationAccess(Collection<Long> userIds, Collection<Long> orgTypeIds, boolean hasAccess) {
+        if (userIds.isEmpty() || orgTypeIds.isEmpty()) {
+            return 0;
         }
+        
+        int updated = entityManager.createNativeQuery(
+                        "UPDATE user_organization_access SET has_access = :hasAccess " +
+                        "WHERE user_id IN (:userIds) AND organization_type_id IN (:orgTypeIds) " +
+                        "AND has_access <> :hasAccess")
+                .setParameter("hasAccess", hasAccess)
+                .setParameter("userIds", userIds)
+                .setParameter("orgTypeIds", orgTypeIds)
+                .executeUpdate();
+        
+        int inserted = entityManager.createNativeQuery(
+                        "INSERT INTO user_organization_access (user_id, organization_type_id, has_access, created_at) " +
+                        "SELECT u.id, t.id, :hasAccess, CURRENT_TIMESTAMP " +
+                        "FROM users u CROSS JOIN organization_types t " +
+                        "WHERE u.id IN (:userIds) AND t.id IN (:orgTypeIds) " +
+                        "AND NOT EXISTS (SELECT 1 FROM user_organization_access a " +
+                        "WHERE a.user_id = u.id AND a.organization_type_id = t.id)")
+                .setParameter("hasAccess", hasAccess)
+                .setParameter("userIds", userIds)
+                .setParameter("orgTypeIds", orgTypeIds)
+                .executeUpdate();
+        
+        return updated + inserted;
     }
     
     private UserDTO convertToDTO(User user) {
+        return convertToDTO(user, organizationAccessMatrix.accessMap(user.getId()));
+    }
+    
+    /**
+     * Reads the user's access rows from the database. Only needed inside a write, where
+     * the access matrix does not reflect the uncommitted changes yet.
+     */
+    private Map<Long, Boolean> loadOrganizationAccess(Long userId) {
+        Map<Long, Boolean> orgAccess = new HashMap<>();
+        for (Object[] entry : userOrgAccessRepository.findAccessEntriesByUserId(userId)) {
+            orgAccess.put((Long) entry[1], (Boolean) entry[2]);
+        }
+        return orgAccess;
+    }
+    
+    private UserDTO convertToDTO(User user, Map<Long, Boolean> orgAccess) {
         UserDTO dto = new UserDTO(
                 user.getId(),
                 user.getFirstName(),
@@ -316,12 +475,6 @@ public class UserService {
                 user.getRole()
         );
         
-        // Build organization access map
-        Map<Long, Boolean> orgAccess = new HashMap<>();
-        List<UserOrganizationAccess> accessList = userOrgAccessRepository.findByUserId(user.getId());
-        for (UserOrganizationAccess access : accessList) {
-            orgAccess.put(access.getOrganizationType().getId(), access.getHasAccess());
-        }
         dto.setOrganizationAccess(orgAccess);
         
         return dto;
@@ -1,36 +1,132 @@
 package com.pwc.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.Key;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies JWTs.
+ *
+ * Signing keys are built once and held in an immutable {@link SigningKeys} snapshot;
+ * the parser is built once and picks the verification key by the token's {@code kid}
+ * header. With {@code jwt.keys-file} set, several keys can be active at once and
+ * {@link #reloadKeys()} swaps in a new set without a restart, e.g.:
+ *
+ * <pre>
+ * active=2024-06
+ * key.2024-06=...
+ * key.2024-01=...
+ * </pre>
+ *
+ * New tokens are signed with the active key; tokens signed with any listed key stay
+ * valid until they expire or the key is removed. {@code jwt.secret} is always a key, with
+ * id {@value #DEFAULT_KEY_ID}: the only one without a keys file, and next to the file's
+ * keys with one, so tokens issued before switching to the file keep working. A
+ * {@code key.default} entry in the file replaces it.
+ */
 @Component
 public class JwtUtil {
     
-    @Value("${jwt.secret}")
-    private String secret;
+    static final String DEFAULT_KEY_ID = "default";
     
-    @Value("${jwt.expiration}")
-    private Long expiration;
+    private final String secret;
+    private final String keysFile;
+    private final Long expiration;
+    private final JwtParser parser;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    private volatile SigningKeys signingKeys;
+    
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.keys-file:}") String keysFile,
+                   @Value("${jwt.expiration}") Long expiration) {
+        this.secret = secret;
+        this.keysFile = keysFile;
+        this.expiration = expiration;
+        this.signingKeys = loadKeys();
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(ProtectedHeader header) {
+                        return signingKeys.verificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+    
+    /**
+     * Re-reads the signing keys. The current keys stay in place if the new ones are invalid.
+     */
+    public void reloadKeys() {
+        this.signingKeys = loadKeys();
+    }
+    
+    private SigningKeys loadKeys() {
+        if (keysFile == null || keysFile.isBlank()) {
+            return new SigningKeys(DEFAULT_KEY_ID, Map.of(DEFAULT_KEY_ID, hmacKey(DEFAULT_KEY_ID, secret)));
+        }
+        
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(Paths.get(keysFile), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read JWT keys file: " + e.getMessage(), e);
+        }
+        
+        Map<String, SecretKey> keys = new HashMap<>();
+        // Tokens issued before the keys file was set were signed with jwt.secret, as
+        // default; they stay valid unless the file overrides key.default
+        keys.put(DEFAULT_KEY_ID, hmacKey(DEFAULT_KEY_ID, secret));
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith("key.")) {
+                String keyId = name.substring("key.".length());
+                keys.put(keyId, hmacKey(keyId, properties.getProperty(name)));
+            }
+        }
+        
+        String activeKeyId = properties.getProperty("active");
+        if (activeKeyId == null || !keys.containsKey(activeKeyId)) {
+            throw new RuntimeException("JWT keys file must set 'active' to one of its keys");
+        }
+        return new SigningKeys(activeKeyId, keys);
+    }
+    
+    private static SecretKey hmacKey(String keyId, String secret) {
+        try {
+            return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid JWT key '" + keyId + "': " + e.getMessage(), e);
+        }
     }
     
     public String generateToken(String email, String role) {
+        SigningKeys keys = signingKeys;
         return Jwts.builder()
+                .header().keyId(keys.activeKeyId()).and()
                 .subject(email)
                 .claim("role", role)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(keys.activeKey())
                 .compact();
     }
     
@@ -51,12 +147,17 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
     
+    /**
+     * Verifies the token signature and expiration and returns its claims.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public Claims parseClaims(String token) {
+        return extractAllClaims(token);
+    }
+    
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
     
     public Boolean isTokenExpired(String token) {
@@ -67,19 +168,27 @@ public class JwtUtil {
         final String tokenEmail = extractEmail(token);
         return (tokenEmail.equals(email) && !isTokenExpired(token));
     }
+    
+    /**
+     * Immutable set of signing keys by key id, one of them used to sign new tokens.
+     */
+    private record SigningKeys(String activeKeyId, Map<String, SecretKey> keys) {
+        
+        SigningKeys {
+            keys = Collections.unmodifiableMap(new HashMap<>(keys));
+        }
+        
+        SecretKey activeKey() {
+            return keys.get(activeKeyId);
+        }
+        
+        SecretKey verificationKey(String keyId) {
+            // Tokens issued before key ids were introduced carry no kid
+            SecretKey key = keys.get(keyId != null ? keyId : DEFAULT_KEY_ID);
+            if (key == null) {
+                throw new SecurityException("Unknown JWT key id: " + keyId);
+            }
+            return key;
+        }
+    }
 }
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
@@ -0,0 +1,223 @@
+package com.pwc.util;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset ("seek") pagination for list endpoints.
+ *
+ * Instead of skipping {@code page * size} rows with OFFSET, each page continues right
+ * after the sort value and id of the previous page's last row, so a page costs the same
+ * at any depth. The position is handed to the client as an opaque cursor. The id breaks
+ * ties between equal sort values.
+ *
+ * Each page is read as a range seek on the (column, id) index, {@code col >= :v AND
+ * (col > :v OR id > :id)}, in index order. Rows with a null sort value are read as a
+ * separate phase ({@code col IS NULL AND id > :id}), placed where a default ascending
+ * index keeps them: last when ascending, first when descending (a backward scan).
+ *
+ * The total is counted separately with {@link #count}, so infinite scroll does not pay
+ * for a COUNT per page.
+ */
+@Component
+public class KeysetPaginator {
+    
+    // Separates the cursor parts; cannot appear in the property names it encodes
+    private static final String CURSOR_SEPARATOR = "\u001F";
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    /**
+     * A sortable property: the name clients send as {@code sortBy}, its JPQL path in the
+     * query and its Java type, used to read the value back from a cursor.
+     */
+    public record SortKey(String property, String path, Class<?> type) {
+    }
+    
+    /**
+     * The query to paginate: {@code select} is the selected entity alias, {@code from}
+     * the FROM clause with joins, {@code where} an optional condition using
+     * {@code parameters}, and {@code idPath} the unique id used as tiebreaker.
+     */
+    public record Query<T>(Class<T> resultType, String select, String from, String where,
+                           Map<String, Object> parameters, String idPath) {
+    }
+    
+    /**
+     * One page and the cursor of the next one (null on the last page).
+     */
+    public record Slice<T>(List<T> content, String nextCursor) {
+    }
+    
+    /**
+     * Fetches the page after {@code cursor}, or the first page when the cursor is empty.
+     *
+     * @throws RuntimeException if the cursor is malformed or was issued for another sort
+     */
+    public <T> Slice<T> fetch(Query<T> query, SortKey sort, boolean ascending, String cursor, int size) {
+        if (size < 1) {
+            throw new RuntimeException("Page size must be at least 1");
+        }
+        Position position = cursor != null && !cursor.isEmpty() ? decode(cursor, sort, ascending) : null;
+        List<Phase> phases = sort.path().equals(query.idPath())
+                ? List.of(Phase.ALL)
+                : ascending ? List.of(Phase.VALUES, Phase.NULLS) : List.of(Phase.NULLS, Phase.VALUES);
+        // The cursor's value tells which phase it stopped in
+        int phase = 0;
+        if (position != null && phases.size() > 1) {
+            phase = phases.indexOf(position.value() == null ? Phase.NULLS : Phase.VALUES);
+        }
+        
+        // One extra row tells whether there is a next page; a phase that runs out before
+        // that hands over to the next one, starting from its beginning
+        List<Object[]> rows = new ArrayList<>();
+        for (; phase < phases.size() && rows.size() <= size; phase++) {
+            rows.addAll(fetchPhase(query, sort, ascending, phases.get(phase), position, size + 1 - rows.size()));
+            position = null;
+        }
+        
+        List<T> content = new ArrayList<>(Math.min(rows.size(), size));
+        for (int i = 0; i < rows.size() && i < size; i++) {
+            content.add(query.resultType().cast(rows.get(i)[0]));
+        }
+        String nextCursor = null;
+        if (rows.size() > size) {
+            Object[] last = rows.get(size - 1);
+            nextCursor = encode(sort, ascending, last[1], (Long) last[2]);
+        }
+        return new Slice<>(content, nextCursor);
+    }
+    
+    /**
+     * Reads up to {@code limit} rows of one phase, after {@code position} or from the start
+     * of the phase. Within a phase the sort column is either all null or all non-null, so
+     * the seek is a plain range on the (column, id) index and the ORDER BY needs no NULLS
+     * clause.
+     */
+    private <T> List<Object[]> fetchPhase(Query<T> query, SortKey sort, boolean ascending, Phase phase,
+                                          Position position, int limit) {
+        String direction = ascending ? "ASC" : "DESC";
+        String after = ascending ? ">" : "<";
+        
+        Map<String, Object> parameters = new HashMap<>(query.parameters());
+        List<String> conditions = new ArrayList<>();
+        if (query.where() != null) {
+            conditions.add("(" + query.where() + ")");
+        }
+        if (position != null) {
+            parameters.put("keysetId", position.id());
+        }
+        switch (phase) {
+            case ALL -> {
+                if (position != null) {
+                    conditions.add(query.idPath() + " " + after + " :keysetId");
+                }
+            }
+            case NULLS -> {
+                conditions.add(sort.path() + " IS NULL");
+                if (position != null) {
+                    conditions.add(query.idPath() + " " + after + " :keysetId");
+                }
+            }
+            case VALUES -> {
+                if (position != null) {
+                    parameters.put("keysetValue", position.value());
+                    conditions.add(sort.path() + " " + after + "= :keysetValue");
+                    conditions.add("(" + sort.path() + " " + after + " :keysetValue OR "
+                            + query.idPath() + " " + after + " :keysetId)");
+                } else {
+                    conditions.add(sort.path() + " IS NOT NULL");
+                }
+            }
+        }
+        String whereClause = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        String orderBy = phase == Phase.ALL
+                ? " ORDER BY " + query.idPath() + " " + direction
+                : " ORDER BY " + sort.path() + " " + direction + ", " + query.idPath() + " " + direction;
+        
+        TypedQuery<Object[]> pageQuery = entityManager.createQuery(
+                "SELECT " + query.select() + ", " + sort.path() + ", " + query.idPath() + " "
+                        + query.from() + whereClause + orderBy, Object[].class);
+        parameters.forEach(pageQuery::setParameter);
+        return pageQuery.setMaxResults(limit).getResultList();
+    }
+    
+    /**
+     * Counts all the rows of the query, regardless of any cursor.
+     */
+    public long count(Query<?> query) {
+        TypedQuery<Long> countQuery = entityManager.createQuery("SELECT COUNT(" + query.select() + ") "
+                + query.from() + (query.where() != null ? " WHERE " + query.where() : ""), Long.class);
+        query.parameters().forEach(countQuery::setParameter);
+        return countQuery.getSingleResult();
+    }
+    
+    private record Position(Object value, Long id) {
+    }
+    
+    /**
+     * A stretch of the sort order read with one range seek: the rows with a null sort
+     * value, those with a value, or all rows when sorting by id.
+     */
+    private enum Phase {
+        ALL, NULLS, VALUES
+    }
+    
+    private static String encode(SortKey sort, boolean ascending, Object value, Long id) {
+        String raw = String.join(CURSOR_SEPARATOR, sort.property(), ascending ? "asc" : "desc", String.valueOf(id))
+                + (value != null ? CURSOR_SEPARATOR + value : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static Position decode(String cursor, SortKey sort, boolean ascending) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(CURSOR_SEPARATOR, 4);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        if (parts.length < 3) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        if (!parts[0].equals(sort.property()) || !parts[1].equals(ascending ? "asc" : "desc")) {
+            throw new RuntimeException("Cursor was issued for a different sort; start again without it");
+        }
+        try {
+            Long id = Long.valueOf(parts[2]);
+            return new Position(parts.length == 4 ? parseValue(parts[3], sort.type()) : null, id);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+    
+    private static Object parseValue(String value, Class<?> type) {
+        if (type == String.class) {
+            return value;
+        }
+        if (type == Long.class) {
+            return Long.valueOf(value);
+        }
+        if (type == Integer.class) {
+            return Integer.valueOf(value);
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value);
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.parse(value);
+        }
+        throw new IllegalArgumentException("Unsupported sort key type: " + type.getName());
+    }
+}
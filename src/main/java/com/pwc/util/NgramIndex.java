@@ -0,0 +1,437 @@
+package com.pwc.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * In-memory trigram index answering case-insensitive substring searches over a few
+ * text fields per document, i.e. what {@code LOWER(col) LIKE '%x%'} answers with a scan.
+ *
+ * Each field is lowercased and split into overlapping 3-character grams; every gram
+ * maps to a sorted array of the ids of the documents containing it. A query with at
+ * least 3 characters intersects the lists of its grams, starting from the shortest,
+ * and checks the remaining candidates against the stored text. Shorter queries take
+ * the union of the grams starting with them instead.
+ *
+ * Ids must fit in an int. Reads run concurrently; writes take an exclusive lock.
+ */
+public class NgramIndex {
+    
+    private static final int GRAM_LENGTH = 3;
+    
+    // Joins the fields of a document; never part of a query, so matches stay within one field
+    private static final char FIELD_SEPARATOR = '\u0000';
+    
+    // Pads the grams at the end of a field, so every position of a field starts a gram
+    private static final char FIELD_END = '\u0001';
+    
+    private final NavigableMap<Long, Postings> postingsByGram = new TreeMap<>();
+    private final Map<Integer, String> textById = new HashMap<>();
+    private final Postings allIds = new Postings();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    /**
+     * Indexes the document, replacing what was indexed before under the same id.
+     * Null fields are skipped.
+     */
+    public void put(Long id, String... fields) {
+        int docId = Math.toIntExact(id);
+        String text = join(fields);
+        lock.writeLock().lock();
+        try {
+            String previous = textById.put(docId, text);
+            if (text.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                removeGrams(docId, previous);
+            }
+            allIds.add(docId);
+            for (long gram : grams(text, true)) {
+                postingsByGram.computeIfAbsent(gram, key -> new Postings()).add(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long id) {
+        int docId = Math.toIntExact(id);
+        lock.writeLock().lock();
+        try {
+            String previous = textById.remove(docId);
+            if (previous != null) {
+                removeGrams(docId, previous);
+                allIds.remove(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postingsByGram.clear();
+            textById.clear();
+            allIds.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return textById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the ids of all documents with a field containing the query, ignoring case,
+     * in ascending order.
+     */
+    public long[] search(String query) {
+        return search(query, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Returns the lowest {@code limit} ids of the documents with a field containing the
+     * query, ignoring case, in ascending order.
+     */
+    public long[] search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return new long[0];
+        }
+        
+        lock.readLock().lock();
+        try {
+            long[] matches = new long[Math.min(limit, textById.size())];
+            int[] found = new int[1];
+            forEachMatch(normalized, (docId, text) -> {
+                matches[found[0]++] = docId;
+                return found[0] < limit;
+            });
+            return Arrays.copyOf(matches, found[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns up to {@code limit} ids of matching documents accepted by the filter, best
+     * first: a field equal to the query, then a field starting with it, then a word
+     * starting with it, then any other match; ties go to the shorter field, then the
+     * lower id. Only the first {@code maxCandidates} accepted matches in id order are
+     * ranked, which bounds the cost of very broad queries.
+     */
+    public long[] suggest(String query, int limit, int maxCandidates, LongPredicate filter) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return new long[0];
+        }
+        
+        // Worst kept hit at the head: {score, id}
+        Comparator<long[]> byRank = Comparator.<long[]>comparingLong(hit -> hit[0]).thenComparingLong(hit -> hit[1]);
+        PriorityQueue<long[]> best = new PriorityQueue<>(limit + 1, byRank.reversed());
+        lock.readLock().lock();
+        try {
+            int[] candidates = new int[1];
+            forEachMatch(normalized, (docId, text) -> {
+                if (!filter.test(docId)) {
+                    return true;
+                }
+                best.add(new long[] { score(text, normalized), docId });
+                if (best.size() > limit) {
+                    best.poll();
+                }
+                return ++candidates[0] < maxCandidates;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        long[] ids = new long[best.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = best.poll()[1];
+        }
+        return ids;
+    }
+    
+    /**
+     * Passes each document containing the query to the visitor, in ascending id order,
+     * until the visitor returns false. Must be called under the read lock.
+     */
+    private void forEachMatch(String normalized, MatchVisitor visitor) {
+        Postings[] lists = gramPostings(normalized);
+        if (lists == null) {
+            return;
+        }
+        
+        Postings shortest = lists.length == 0 ? allIds : lists[0];
+        int[] cursors = new int[lists.length];
+        for (int i = 0; i < shortest.size; i++) {
+            int docId = shortest.ids[i];
+            if (containsInAll(lists, cursors, docId)) {
+                String text = textById.get(docId);
+                if (text.contains(normalized) && !visitor.visit(docId, text)) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Lower is better: the match kind from {@link #suggest} in the high bits, the length
+     * of the best matching field in the low ones.
+     */
+    private static long score(String text, String normalized) {
+        long best = Long.MAX_VALUE;
+        int fieldStart = 0;
+        while (fieldStart <= text.length()) {
+            int fieldEnd = text.indexOf(FIELD_SEPARATOR, fieldStart);
+            if (fieldEnd < 0) {
+                fieldEnd = text.length();
+            }
+            int kind = matchKind(text, fieldStart, fieldEnd, normalized);
+            if (kind >= 0) {
+                best = Math.min(best, ((long) kind << 32) | (fieldEnd - fieldStart));
+            }
+            fieldStart = fieldEnd + 1;
+        }
+        return best;
+    }
+    
+    /**
+     * 0 if the field equals the query, 1 if it starts with it, 2 if a word in it does,
+     * 3 for any other occurrence and -1 if there is none.
+     */
+    private static int matchKind(String text, int fieldStart, int fieldEnd, String normalized) {
+        int kind = -1;
+        int from = fieldStart;
+        int position;
+        while ((position = text.indexOf(normalized, from)) >= 0 && position + normalized.length() <= fieldEnd) {
+            if (position == fieldStart) {
+                return position + normalized.length() == fieldEnd ? 0 : 1;
+            }
+            if (!Character.isLetterOrDigit(text.charAt(position - 1))) {
+                return 2;
+            }
+            kind = 3;
+            from = position + 1;
+        }
+        return kind;
+    }
+    
+    /**
+     * Postings of the query's distinct grams, shortest first; empty for queries made of
+     * grams every document has, null if some gram does not occur at all.
+     *
+     * A query shorter than a gram yields the ids of all grams starting with it (the
+     * padding at field ends makes that every occurrence), or nothing to narrow down
+     * when those lists hold more ids than there are documents.
+     */
+    private Postings[] gramPostings(String normalized) {
+        if (normalized.length() < GRAM_LENGTH) {
+            Postings candidates = prefixCandidates(normalized);
+            return candidates == allIds ? new Postings[0] : new Postings[] { candidates };
+        }
+        
+        long[] grams = Arrays.stream(grams(normalized, false)).distinct().toArray();
+        Postings[] lists = new Postings[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postingsByGram.get(grams[i]);
+            if (lists[i] == null) {
+                return null;
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        // Grams present in every document filter nothing
+        int selective = lists.length;
+        while (selective > 0 && lists[selective - 1].size == allIds.size) {
+            selective--;
+        }
+        return Arrays.copyOf(lists, selective);
+    }
+    
+    private Postings prefixCandidates(String prefix) {
+        long from = gram(prefix.charAt(0), prefix.length() > 1 ? prefix.charAt(1) : 0, (char) 0);
+        long to = prefix.length() > 1 ? from | 0xFFFFL : from | 0xFFFFFFFFL;
+        Collection<Postings> lists = postingsByGram.subMap(from, true, to, true).values();
+        long total = 0;
+        for (Postings list : lists) {
+            total += list.size;
+        }
+        if (total >= allIds.size) {
+            return allIds;
+        }
+        
+        int[] ids = new int[(int) total];
+        int offset = 0;
+        for (Postings list : lists) {
+            System.arraycopy(list.ids, 0, ids, offset, list.size);
+            offset += list.size;
+        }
+        Arrays.sort(ids);
+        int unique = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (unique == 0 || ids[unique - 1] != ids[i]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return new Postings(ids, unique);
+    }
+    
+    /**
+     * Whether every list but the first (the one being iterated) contains the id. Ids are
+     * visited in ascending order, so each list is searched from where the last lookup
+     * in it ended.
+     */
+    private static boolean containsInAll(Postings[] lists, int[] cursors, int docId) {
+        for (int l = 1; l < lists.length; l++) {
+            Postings list = lists[l];
+            int position = Arrays.binarySearch(list.ids, cursors[l], list.size, docId);
+            if (position < 0) {
+                cursors[l] = -position - 1;
+                return false;
+            }
+            cursors[l] = position;
+        }
+        return true;
+    }
+    
+    private void removeGrams(int docId, String text) {
+        for (long gram : grams(text, true)) {
+            Postings postings = postingsByGram.get(gram);
+            if (postings != null && postings.remove(docId) && postings.size == 0) {
+                postingsByGram.remove(gram);
+            }
+        }
+    }
+    
+    /**
+     * Packs each 3-character window within a field into a long, 16 bits per character.
+     * With {@code padFieldEnds}, windows also start at the last two characters of each
+     * field, filled up with {@link #FIELD_END}. Repeated grams are kept.
+     */
+    private static long[] grams(String text, boolean padFieldEnds) {
+        long[] grams = new long[text.length()];
+        int count = 0;
+        int fieldStart = 0;
+        while (fieldStart < text.length()) {
+            int fieldEnd = text.indexOf(FIELD_SEPARATOR, fieldStart);
+            if (fieldEnd < 0) {
+                fieldEnd = text.length();
+            }
+            int lastStart = padFieldEnds ? fieldEnd - 1 : fieldEnd - GRAM_LENGTH;
+            for (int i = fieldStart; i <= lastStart; i++) {
+                grams[count++] = gram(charAt(text, i, fieldEnd), charAt(text, i + 1, fieldEnd),
+                        charAt(text, i + 2, fieldEnd));
+            }
+            fieldStart = fieldEnd + 1;
+        }
+        return Arrays.copyOf(grams, count);
+    }
+    
+    private static char charAt(String text, int index, int fieldEnd) {
+        return index < fieldEnd ? text.charAt(index) : FIELD_END;
+    }
+    
+    private static long gram(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+    
+    private static String join(String... fields) {
+        StringBuilder text = new StringBuilder();
+        for (String field : fields) {
+            if (field != null && !field.isEmpty()) {
+                if (text.length() > 0) {
+                    text.append(FIELD_SEPARATOR);
+                }
+                text.append(normalize(field));
+            }
+        }
+        return text.toString();
+    }
+    
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT)
+                .replace(FIELD_SEPARATOR, ' ')
+                .replace(FIELD_END, ' ');
+    }
+    
+    @FunctionalInterface
+    private interface MatchVisitor {
+        
+        /** Returns false to stop the search */
+        boolean visit(int docId, String text);
+    }
+    
+    /**
+     * Sorted, growable array of document ids. Ids mostly arrive in ascending order,
+     * which makes adding them an append.
+     */
+    private static final class Postings {
+        
+        private int[] ids;
+        private int size;
+        
+        Postings() {
+            this(new int[4], 0);
+        }
+        
+        Postings(int[] ids, int size) {
+            this.ids = ids;
+            this.size = size;
+        }
+        
+        void add(int docId) {
+            if (size > 0 && ids[size - 1] >= docId) {
+                int position = Arrays.binarySearch(ids, 0, size, docId);
+                if (position >= 0) {
+                    return;
+                }
+                insertAt(-position - 1, docId);
+                return;
+            }
+            insertAt(size, docId);
+        }
+        
+        boolean remove(int docId) {
+            int position = Arrays.binarySearch(ids, 0, size, docId);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+        
+        void clear() {
+            ids = new int[4];
+            size = 0;
+        }
+        
+        private void insertAt(int position, int docId) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1) + 1);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = docId;
+            size++;
+        }
+    }
+}
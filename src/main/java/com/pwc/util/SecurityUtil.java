@@ -1,7 +1,7 @@
 package com.pwc.util;
 
 import com.pwc.model.User;
-import com.pwc.repository.UserRepository;
+import com.pwc.security.AuthenticatedUser;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -9,21 +9,23 @@ import org.springframework.stereotype.Component;
 @Component
 public class SecurityUtil {
     
-    private final UserRepository userRepository;
-    
-    public SecurityUtil(UserRepository userRepository) {
-        this.userRepository = userRepository;
-    }
-    
-    public User getCurrentUser() {
+    /**
+     * Returns the principal resolved by the JWT filter, without touching the database.
+     */
+    public AuthenticatedUser getCurrentPrincipal() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || authentication.getName() == null) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
             throw new RuntimeException("No authenticated user found");
         }
-        
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found: " + email));
+        return user;
+    }
+    
+    /**
+     * Returns a detached snapshot of the current user, suitable as an association
+     * reference (e.g. {@code createdBy}). Load the entity from its repository if
+     * it needs to be modified.
+     */
+    public User getCurrentUser() {
+        return getCurrentPrincipal().toUser();
     }
 }
-
@@ -0,0 +1,124 @@
+package com.pwc.util;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The sort keys a listing accepts, each mapped to precompiled {@link Sort}s and, for
+ * listings with cursor pagination, to its {@link KeysetPaginator.SortKey}.
+ *
+ * Every key sorts by its column and then by id, so ties are broken and pages are
+ * stable. Keys with a keyset path must match a (column, id) index declared on the
+ * entity, so cursor pages are read in index order. Keys for offset pagination only may
+ * sort on columns no index can order, such as those of a joined table; the declaring
+ * service says which. Unknown keys are rejected up front instead of failing in the query.
+ */
+public final class SortRegistry {
+    
+    private final String listing;
+    private final Map<String, Entry> entries;
+    
+    private record Entry(Sort ascending, Sort descending, KeysetPaginator.SortKey keysetKey) {
+    }
+    
+    private SortRegistry(String listing, Map<String, Entry> entries) {
+        this.listing = listing;
+        this.entries = Collections.unmodifiableMap(entries);
+    }
+    
+    /**
+     * Starts a registry for {@code listing} (used in error messages) whose id, the
+     * tiebreaker of every sort, is {@code idProperty} in Sorts and {@code idPath} in
+     * keyset queries.
+     */
+    public static Builder builder(String listing, String idProperty, String idPath) {
+        return new Builder(listing, idProperty, idPath);
+    }
+    
+    /**
+     * Returns the Sort for this key, descending when {@code direction} is "desc".
+     *
+     * @throws RuntimeException if the key is not allowed
+     */
+    public Sort sort(String key, String direction) {
+        Entry entry = entry(key);
+        return "desc".equalsIgnoreCase(direction) ? entry.descending() : entry.ascending();
+    }
+    
+    /**
+     * Returns the keyset sort key for this key.
+     *
+     * @throws RuntimeException if the key is not allowed
+     */
+    public KeysetPaginator.SortKey keysetKey(String key) {
+        KeysetPaginator.SortKey keysetKey = entry(key).keysetKey();
+        if (keysetKey == null) {
+            throw new RuntimeException("Cursor pagination is not available for " + listing + " sorted by " + key);
+        }
+        return keysetKey;
+    }
+    
+    private Entry entry(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            throw new RuntimeException("Cannot sort " + listing + " by " + key
+                    + "; expected one of " + String.join(", ", entries.keySet()));
+        }
+        return entry;
+    }
+    
+    public static final class Builder {
+        
+        private final String listing;
+        private final String idProperty;
+        private final String idPath;
+        private final Map<String, Entry> entries = new LinkedHashMap<>();
+        
+        private Builder(String listing, String idProperty, String idPath) {
+            this.listing = listing;
+            this.idProperty = idProperty;
+            this.idPath = idPath;
+        }
+        
+        /**
+         * Allows sorting by {@code key}: {@code property} in Sorts, {@code path} of type
+         * {@code type} in keyset queries. The column needs a (column, id) index.
+         */
+        public Builder add(String key, String property, String path, Class<?> type) {
+            return put(key, property, new KeysetPaginator.SortKey(key, path, type));
+        }
+        
+        /**
+         * Allows sorting by {@code key} in offset pagination only, e.g. by a joined
+         * entity's {@code property} that no index of the listed entity can order.
+         */
+        public Builder add(String key, String property) {
+            return put(key, property, null);
+        }
+        
+        /**
+         * Allows sorting by id, the only key without a tiebreaker.
+         */
+        public Builder addId(String key) {
+            return put(key, idProperty, new KeysetPaginator.SortKey(key, idPath, Long.class));
+        }
+        
+        private Builder put(String key, String property, KeysetPaginator.SortKey keysetKey) {
+            Sort ascending = property.equals(idProperty)
+                    ? Sort.by(Sort.Direction.ASC, idProperty)
+                    : Sort.by(Sort.Direction.ASC, property, idProperty);
+            Sort descending = property.equals(idProperty)
+                    ? Sort.by(Sort.Direction.DESC, idProperty)
+                    : Sort.by(Sort.Direction.DESC, property, idProperty);
+            entries.put(key, new Entry(ascending, descending, keysetKey));
+            return this;
+        }
+        
+        public SortRegistry build() {
+            return new SortRegistry(listing, new LinkedHashMap<>(entries));
+        }
+    }
+}
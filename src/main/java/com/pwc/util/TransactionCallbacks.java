@@ -0,0 +1,61 @@
+package com.pwc.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers in-memory side effects of a write (indexes, caches, counters) until its
+ * transaction commits, so that other requests never see state the database may still
+ * roll back.
+ */
+public final class TransactionCallbacks {
+    
+    private TransactionCallbacks() {
+    }
+    
+    /**
+     * Runs the action after the current transaction commits, or right away outside a
+     * transaction. Nothing runs if the transaction rolls back.
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+    
+    /**
+     * Runs the action right away and, inside a transaction, again after it commits. For
+     * evictions: a request that reloads the entry between the two still sees pre-commit
+     * data, and the second run drops it.
+     */
+    public static void nowAndAfterCommit(Runnable action) {
+        action.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            afterCommit(action);
+        }
+    }
+    
+    /**
+     * Runs the action if the current transaction rolls back; does nothing outside a
+     * transaction. Undoes in-memory changes made ahead of the commit.
+     */
+    public static void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+}
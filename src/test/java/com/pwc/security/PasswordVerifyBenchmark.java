@@ -0,0 +1,71 @@
+package com.pwc.security;
+
+import com.pwc.config.SecurityConfig;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Password verification latency per BCrypt cost factor, to choose
+ * {@code app.security.password.bcrypt-strength} from measurements on the target hardware.
+ * Uses the same encoder as the PasswordEncoder bean.
+ *
+ * Run with {@code mvn test -Pbenchmark -Dtest=PasswordVerifyBenchmark}; pick the costs with
+ * {@code -Dbenchmark.costs=10,12}.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordVerifyBenchmark {
+    
+    @Param({"8", "10", "11", "12", "13"})
+    public int cost;
+    
+    private PasswordEncoder passwordEncoder;
+    private String password;
+    private String hash;
+    
+    @Setup
+    public void setUp() {
+        passwordEncoder = new SecurityConfig(null).passwordEncoder(cost);
+        password = UUID.randomUUID().toString();
+        hash = passwordEncoder.encode(password);
+    }
+    
+    @Benchmark
+    public boolean verify() {
+        return passwordEncoder.matches(password, hash);
+    }
+    
+    @Test
+    void run() throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(PasswordVerifyBenchmark.class.getName() + ".verify");
+        String costs = System.getProperty("benchmark.costs");
+        if (costs != null && !costs.isBlank()) {
+            options.param("cost", costs.split(","));
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,48 @@
+package com.pwc.service;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvImportPipelineTest {
+    
+    private final CsvImportPipeline pipeline = new CsvImportPipeline(1, 1);
+    
+    @AfterEach
+    void shutdown() {
+        pipeline.shutdown();
+    }
+    
+    @Test
+    void readerStopsWhenTheWriterFails() throws IOException, InterruptedException {
+        CSVParser parser = CSVFormat.DEFAULT.parse(new StringReader("a\n".repeat(100)));
+        
+        assertThatThrownBy(() -> pipeline.run(parser, 1, new ImportProgress(), record -> record.get(0),
+                (entities, recordNumbers) -> {
+                    // Lets the reader fill the queue and block on it first
+                    sleep(200);
+                    throw new RuntimeException("Database is down");
+                }))
+                .hasMessage("Database is down");
+        
+        for (int i = 0; i < 50 && pipeline.activeReaders() > 0; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(pipeline.activeReaders()).isZero();
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.pwc.service;
+
+import com.pwc.exception.UnauthorizedException;
+import com.pwc.model.User;
+import com.pwc.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pwc-test;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class RefreshTokenServiceTest {
+    
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Test
+    void rotatedTokenCannotBeUsedAgain() {
+        String token = refreshTokenService.issue(adminId());
+        
+        refreshTokenService.rotate(token);
+        
+        assertThatThrownBy(() -> refreshTokenService.rotate(token)).isInstanceOf(UnauthorizedException.class);
+    }
+    
+    @Test
+    void tokenStaysUsableWhenTheRotationRollsBack() {
+        Long userId = adminId();
+        String token = refreshTokenService.issue(userId);
+        
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            refreshTokenService.rotate(token);
+            status.setRollbackOnly();
+        });
+        
+        assertThat(refreshTokenService.rotate(token).userId()).isEqualTo(userId);
+    }
+    
+    @Test
+    void revokedTokensAreRejected() {
+        Long userId = adminId();
+        String token = refreshTokenService.issue(userId);
+        
+        refreshTokenService.revokeAll(userId);
+        
+        assertThatThrownBy(() -> refreshTokenService.rotate(token)).isInstanceOf(UnauthorizedException.class);
+    }
+    
+    private Long adminId() {
+        return userRepository.findByEmail("admin@pwc.com").map(User::getId).orElseThrow();
+    }
+}
@@ -0,0 +1,120 @@
+package com.pwc.service;
+
+import com.pwc.dto.PageResponse;
+import com.pwc.dto.UserCreateDTO;
+import com.pwc.dto.UserDTO;
+import com.pwc.model.OrganizationType;
+import com.pwc.repository.OrganizationTypeRepository;
+import com.pwc.security.OrganizationAccessMatrix;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the user listing against N+1 queries: organization access comes from the
+ * in-memory access matrix, so a page costs its SELECT and its COUNT whatever its size,
+ * and the matrix reloads many users' access with one query per batch.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pwc-test;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserServiceQueryCountTest {
+    
+    private static final int USERS = 60;
+    private static final int PAGE_SIZE = 50;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private OrganizationTypeRepository organizationTypeRepository;
+    
+    @Autowired
+    private OrganizationAccessMatrix organizationAccessMatrix;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private Statistics statistics;
+    private Long grantedTypeId;
+    private final List<Long> userIds = new ArrayList<>();
+    
+    @BeforeAll
+    void createUsers() {
+        List<OrganizationType> types = organizationTypeRepository.findAll();
+        assertThat(types).hasSizeGreaterThanOrEqualTo(2);
+        grantedTypeId = types.get(0).getId();
+        
+        for (int i = 0; i < USERS; i++) {
+            Map<Long, Boolean> access = new HashMap<>();
+            access.put(grantedTypeId, true);
+            access.put(types.get(1).getId(), i % 2 == 0);
+            
+            UserCreateDTO user = new UserCreateDTO();
+            user.setFirstName("First" + i);
+            user.setLastName("Last" + i);
+            user.setEmail("query-count-" + i + "@example.com");
+            user.setOrganizationAccess(access);
+            userIds.add(userService.createUser(user).getId());
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+    
+    @Test
+    void pageOfAllUsersRunsSelectAndCount() {
+        statistics.clear();
+        
+        PageResponse<UserDTO> page = userService.getAllUsers(0, PAGE_SIZE, "lastName", "asc", null, "all");
+        
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getContent()).allSatisfy(user -> assertThat(user.getOrganizationAccess()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+    
+    @Test
+    void pageFilteredByAccessRunsSelectAndCount() {
+        statistics.clear();
+        
+        PageResponse<UserDTO> page = userService.getAllUsers(0, PAGE_SIZE, "id", "asc", null,
+                String.valueOf(grantedTypeId));
+        
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getContent()).allSatisfy(user ->
+                assertThat(user.getOrganizationAccess()).containsEntry(grantedTypeId, true));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+    
+    @Test
+    void pageWithSearchRunsSelectAndCount() {
+        statistics.clear();
+        
+        PageResponse<UserDTO> page = userService.getAllUsers(0, PAGE_SIZE, "email", "desc", "query-count", "all");
+        
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+    
+    @Test
+    void reloadingAccessOfManyUsersRunsOneQuery() {
+        statistics.clear();
+        
+        organizationAccessMatrix.refreshUsers(userIds);
+        
+        assertThat(organizationAccessMatrix.accessMap(userIds.get(0))).containsEntry(grantedTypeId, true);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
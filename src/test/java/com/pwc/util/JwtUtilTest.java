@@ -0,0 +1,46 @@
+package com.pwc.util;
+
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+    
+    private static final String SECRET = "jwt-secret-used-before-the-keys-file-0123456789";
+    private static final long EXPIRATION = 60_000;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void tokensSignedWithTheSecretStayValidAfterSwitchingToAKeysFile() throws IOException {
+        String token = new JwtUtil(SECRET, "", EXPIRATION).generateToken("user@pwc.com", "USER");
+        
+        JwtUtil rotated = new JwtUtil(SECRET, keysFile("active=2024-06\nkey.2024-06=" + "k".repeat(32)), EXPIRATION);
+        
+        assertThat(rotated.extractEmail(token)).isEqualTo("user@pwc.com");
+        assertThat(rotated.extractEmail(rotated.generateToken("user@pwc.com", "USER"))).isEqualTo("user@pwc.com");
+    }
+    
+    @Test
+    void keysFileCanReplaceTheDefaultKey() throws IOException {
+        String token = new JwtUtil(SECRET, "", EXPIRATION).generateToken("user@pwc.com", "USER");
+        
+        JwtUtil rotated = new JwtUtil(SECRET, keysFile("active=default\nkey.default=" + "d".repeat(32)), EXPIRATION);
+        
+        assertThatThrownBy(() -> rotated.extractEmail(token)).isInstanceOf(SignatureException.class);
+    }
+    
+    private String keysFile(String content) throws IOException {
+        Path file = directory.resolve("jwt-keys.properties");
+        Files.writeString(file, content);
+        return file.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package com.pwc.util;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Employee search latency over an {@link NgramIndex} of synthetic employees (1M by
+ * default), indexed like SearchIndex does: employee id, first name, last name, email.
+ *
+ * The queries go from selective (one employee id, one email) to broad (a common last
+ * name, a short query, a suffix every email has). {@code search} returns every match,
+ * as the Employee Details search does; {@code suggest} ranks the first 5000 for the
+ * typeahead, as /api/search/suggest does.
+ *
+ * Run with {@code mvn test -Pbenchmark -Dtest=NgramIndexBenchmark}; change the index size
+ * with {@code -Dbenchmark.documents=100000}.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class NgramIndexBenchmark {
+    
+    private static final String[] FIRST_NAMES = {"John", "Maria", "Ana", "Pedro", "Lucia", "Carlos", "Sofia",
+            "Diego", "Laura", "Martin", "Valentina", "Juan", "Camila", "Jorge", "Elena"};
+    private static final String[] LAST_NAMES = {"Smith", "Garcia", "Lopez", "Martinez", "Rodriguez", "Perez",
+            "Gomez", "Fernandez", "Diaz", "Alvarez", "Romero", "Torres", "Ruiz", "Suarez"};
+    
+    @Param({"1000000"})
+    public int documents;
+    
+    @Param({"w1234567", "maria.lopez12", "martinez", "rodr", "e", "@pwc.com"})
+    public String query;
+    
+    private NgramIndex index;
+    
+    @Setup
+    public void buildIndex() {
+        index = new NgramIndex();
+        // Fixed seed, so every run searches the same documents
+        Random random = new Random(1);
+        for (long id = 1; id <= documents; id++) {
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            index.put(id, "W" + (1_000_000 + id), firstName + (id % 97), lastName,
+                    (firstName + "." + lastName + id + "@pwc.com").toLowerCase());
+        }
+    }
+    
+    @Benchmark
+    public long[] search() {
+        return index.search(query);
+    }
+    
+    @Benchmark
+    public long[] suggest() {
+        return index.suggest(query, 10, 5000, id -> true);
+    }
+    
+    @Test
+    void run() throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(NgramIndexBenchmark.class.getName());
+        String documents = System.getProperty("benchmark.documents");
+        if (documents != null && !documents.isBlank()) {
+            options.param("documents", documents);
+        }
+        new Runner(options.build()).run();
+    }
+}